@@ -0,0 +1,405 @@
+package org.example;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.logging.*;
+
+/**
+ * The row bookkeeping, listener notification and {@code Collection<RealEstate>} view shared by the
+ * {@link ListingStore} implementations.
+ * <p>
+ * Subclasses only decide how the columns are laid out in memory: they write the fields of a row, change a
+ * single field, mark a row as removed and report whether it is. Adding a property appends a row, and
+ * iterating materializes copies of the rows that have not been removed, in row order. Removing through the
+ * iterator removes the row.
+ * </p>
+ * <p>
+ * Every change holds the write lock of the store, from the first listener event to the last: appending,
+ * removing and clearing rows, a change of a field from {@link #beforeUpdate(int)} to {@link #afterUpdate(int)}
+ * and a whole {@link #makeDiscount(IntPredicate, double)} campaign. Writers on different threads therefore
+ * take turns and listeners never see two changes interleaved. The lock is a {@link ReentrantLock} of the store
+ * unless it is created with another one, such as the write lock of a read-write lock whose read lock the
+ * readers hold, as {@link RealEstateAgent} does. Reads are not synchronized; a reader that runs concurrently
+ * with writers must exclude them by other means.
+ * </p>
+ *
+ * @version 1.0
+ */
+public abstract class AbstractListingStore extends AbstractCollection<RealEstate> implements ListingStore {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(AbstractListingStore.class.getName());
+
+    private final List<ListingListener> listeners = new ArrayList<>();
+    private final Lock writeLock;
+    private int rowCount;
+    private int removedCount;
+
+    /**
+     * Creates an empty store whose changes hold a lock of its own.
+     */
+    protected AbstractListingStore() {
+        this(new ReentrantLock());
+    }
+
+    /**
+     * Creates an empty store whose changes hold a given lock.
+     *
+     * @param writeLock the lock held by every change; it must be reentrant
+     */
+    protected AbstractListingStore(Lock writeLock) {
+        this.writeLock = writeLock;
+    }
+
+    /**
+     * Writes all fields of a new row. The row is the current {@link #rowCount()}.
+     *
+     * @param row       the row
+     * @param cityId    the {@link CityDictionary} id of the city
+     * @param price     the base price
+     * @param sqm       the area in square meters
+     * @param rooms     the number of rooms
+     * @param genre     the genre
+     * @param floor     the floor, 0 unless the row is a panel
+     * @param panel     whether the row is a panel
+     * @param insulated whether the row is an insulated panel
+     */
+    protected abstract void writeRow(int row, int cityId, double price, double sqm, int rooms, RealEstate.Genre genre,
+                                     int floor, boolean panel, boolean insulated);
+
+    /**
+     * Overwrites the city id of a row.
+     *
+     * @param row    the row
+     * @param cityId the new city id
+     */
+    protected abstract void writeCityId(int row, int cityId);
+
+    /**
+     * Overwrites the base price of a row. {@link #makeDiscount(IntPredicate, double)} calls this concurrently
+     * for different rows.
+     *
+     * @param row   the row
+     * @param price the new price
+     */
+    protected abstract void writePrice(int row, double price);
+
+    /**
+     * Overwrites the genre of a row.
+     *
+     * @param row   the row
+     * @param genre the new genre
+     */
+    protected abstract void writeGenre(int row, RealEstate.Genre genre);
+
+    /**
+     * Marks a row as removed.
+     *
+     * @param row the row
+     */
+    protected abstract void writeRemoved(int row);
+
+    /**
+     * Discards all rows.
+     */
+    protected abstract void clearRows();
+
+    @Override
+    public void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre) {
+        append(CityDictionary.id(city), price, sqm, numberOfRooms, genre, 0, false, false);
+    }
+
+    @Override
+    public void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+                      int floor, boolean isInsulated) {
+        append(CityDictionary.id(city), price, sqm, numberOfRooms, genre, floor, true, isInsulated);
+    }
+
+    private void append(int cityId, double price, double sqm, int rooms, RealEstate.Genre genre, int floor,
+                        boolean panel, boolean insulated) {
+        writeLock.lock();
+        try {
+            int row = rowCount;
+            writeRow(row, cityId, price, sqm, rooms, genre, floor, panel, insulated);
+            rowCount = row + 1;
+            for (ListingListener listener : listeners) {
+                listener.added(this, row);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void rejected(long lineNumber, String line, RejectReason reason, String detail) {
+        logger.severe(String.format("Error parsing line %d: %s - Error: %s", lineNumber, line, detail));
+    }
+
+    /**
+     * Appends a copy of a property as a new row.
+     *
+     * @param realEstate the property to add
+     * @return always true
+     * @throws UnsupportedOperationException if the property is neither a {@link RealEstate} nor a {@link Panel}
+     */
+    @Override
+    public boolean add(RealEstate realEstate) {
+        if (realEstate.getClass() != Panel.class && realEstate.getClass() != RealEstate.class) {
+            listing(realEstate);
+            return true;
+        }
+        writeLock.lock();
+        try {
+            int row = rowCount;
+            writeListing(row, realEstate);
+            rowCount = row + 1;
+            for (ListingListener listener : listeners) {
+                listener.added(this, row);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the fields of a property as a new row. The row is the current {@link #rowCount()}.
+     * <p>
+     * The default implementation passes the fields to
+     * {@link #writeRow(int, int, double, double, int, RealEstate.Genre, int, boolean, boolean)}.
+     * </p>
+     *
+     * @param row        the row
+     * @param realEstate the property, a {@link RealEstate} or a {@link Panel}
+     */
+    protected void writeListing(int row, RealEstate realEstate) {
+        if (realEstate instanceof Panel panel) {
+            writeRow(row, panel.cityId, panel.price, panel.sqm, panel.numberOfRooms, panel.genre, panel.floor, true,
+                    panel.isInsulated);
+        } else {
+            writeRow(row, realEstate.cityId, realEstate.price, realEstate.sqm, realEstate.numberOfRooms,
+                    realEstate.genre, 0, false, false);
+        }
+    }
+
+    @Override
+    public int size() {
+        return rowCount - removedCount;
+    }
+
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean removeRow(int row) {
+        writeLock.lock();
+        try {
+            checkRow(row);
+            if (isRemoved(row)) {
+                return false;
+            }
+            for (ListingListener listener : listeners) {
+                listener.removing(this, row);
+            }
+            writeRemoved(row);
+            removedCount++;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void setCity(int row, String city) {
+        int cityId = CityDictionary.id(city);
+        beforeUpdate(row);
+        try {
+            writeCityId(row, cityId);
+        } finally {
+            afterUpdate(row);
+        }
+    }
+
+    @Override
+    public void setGenre(int row, RealEstate.Genre genre) {
+        beforeUpdate(row);
+        try {
+            writeGenre(row, genre);
+        } finally {
+            afterUpdate(row);
+        }
+    }
+
+    @Override
+    public void setPrice(int row, double price) {
+        beforeUpdate(row);
+        try {
+            writePrice(row, price);
+        } finally {
+            afterUpdate(row);
+        }
+    }
+
+    @Override
+    public RowBitmap makeDiscount(IntPredicate rows, double percentage) {
+        writeLock.lock();
+        try {
+            int[] selected = IntStream.range(0, rowCount).parallel()
+                    .filter(row -> !isRemoved(row) && rows.test(row))
+                    .toArray();
+            double[] prices = Arrays.stream(selected).parallel()
+                    .mapToDouble(row -> {
+                        double price = price(row);
+                        return price - (price * (percentage / 100));
+                    })
+                    .toArray();
+            RowBitmap discounted = RowBitmap.of(selected);
+            for (ListingListener listener : listeners) {
+                listener.repricing(this, discounted);
+            }
+            IntStream.range(0, selected.length).parallel().forEach(i -> writePrice(selected[i], prices[i]));
+            for (ListingListener listener : listeners) {
+                listener.repriced(this, discounted);
+            }
+            return discounted;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Takes the write lock and announces a change of a row to the listeners while the row still holds its old
+     * values. Every successful call must be followed by {@link #afterUpdate(int)} on the same thread, which
+     * releases the lock.
+     *
+     * @param row the row about to change
+     * @throws IllegalStateException if the row was removed
+     */
+    protected void beforeUpdate(int row) {
+        writeLock.lock();
+        try {
+            checkLive(row);
+            for (ListingListener listener : listeners) {
+                listener.updating(this, row);
+            }
+        } catch (RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Announces to the listeners that a row holds its new values and releases the write lock taken by
+     * {@link #beforeUpdate(int)}.
+     *
+     * @param row the changed row
+     */
+    protected void afterUpdate(int row) {
+        try {
+            for (ListingListener listener : listeners) {
+                listener.updated(this, row);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all rows. Row numbers start again from 0.
+     */
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            clearRows();
+            rowCount = 0;
+            removedCount = 0;
+            for (ListingListener listener : listeners) {
+                listener.cleared(this);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addListener(ListingListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(ListingListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Iterator<RealEstate> iterator() {
+        return new Iterator<>() {
+            private int next = skipRemoved(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < rowCount;
+            }
+
+            @Override
+            public RealEstate next() {
+                if (next >= rowCount) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = skipRemoved(next + 1);
+                return get(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                removeRow(last);
+                last = -1;
+            }
+        };
+    }
+
+    private int skipRemoved(int row) {
+        while (row < rowCount && isRemoved(row)) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Checks that a row exists, whether or not it was removed.
+     *
+     * @param row the row
+     * @return the row
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    protected int checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for row count " + rowCount);
+        }
+        return row;
+    }
+
+    private void checkLive(int row) {
+        if (isRemoved(checkRow(row))) {
+            throw new IllegalStateException("Row " + row + " was removed");
+        }
+    }
+}
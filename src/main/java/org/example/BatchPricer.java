@@ -0,0 +1,113 @@
+package org.example;
+
+import java.util.logging.*;
+
+/**
+ * Computes the total prices of many listings at once from primitive columns, as a {@link ColumnarListingStore}
+ * keeps them.
+ * <p>
+ * Row {@code i} is described by {@code prices[i]}, {@code cityIds[i]}, {@code floors[i]}, {@code insulated[i]}
+ * and {@code panels[i]}, and its total is written to {@code totals[i]}. The result is exactly what
+ * {@link PricingEngine#of(PricingRules)} computes for the same attributes, which is the pricing of
+ * {@link RealEstate#getTotalPrice()} and {@link Panel}, including the rounding and truncation after every
+ * stage.
+ * </p>
+ * <p>
+ * When the {@code jdk.incubator.vector} module is present, that is when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, the rows are priced by {@link VectorPricingKernel}, which
+ * multiplies, rounds and truncates several rows per instruction with the Vector API. Otherwise, and for rows
+ * the vector kernel cannot price exactly, the scalar loop of {@link #scalarTotalPrices} is used, so the module
+ * only affects speed, never results.
+ * </p>
+ * <p>
+ * A call prices a range of rows on the calling thread; disjoint ranges may be priced concurrently.
+ * </p>
+ *
+ * @version 1.0
+ * @see PricingBenchmark
+ */
+public final class BatchPricer {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(BatchPricer.class.getName());
+
+    private static final boolean VECTORIZED = vectorApiPresent();
+
+    private BatchPricer() {
+    }
+
+    private static boolean vectorApiPresent() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            logger.info("Vector API not available, batch pricing uses the scalar loop");
+            return false;
+        }
+        try {
+            logger.info("Batch pricing uses the Vector API with " + VectorPricingKernel.lanes() + " lanes");
+            return true;
+        } catch (LinkageError e) {
+            logger.warning("Vector API could not be loaded, batch pricing uses the scalar loop: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether batches are priced with the Vector API.
+     *
+     * @return true if the vector kernel is used
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Prices a range of rows, with the Vector API if it is available.
+     *
+     * @param rules     the pricing rules
+     * @param prices    the base prices
+     * @param cityIds   the {@link CityDictionary} ids of the cities
+     * @param floors    the floors of the panels; ignored for other rows
+     * @param insulated whether a panel is insulated; ignored for other rows
+     * @param panels    whether a row is a {@link Panel}
+     * @param totals    receives the total prices
+     * @param from      the first row, inclusive
+     * @param to        the last row, exclusive
+     */
+    public static void totalPrices(PricingRules rules, double[] prices, int[] cityIds, int[] floors,
+                                   boolean[] insulated, boolean[] panels, int[] totals, int from, int to) {
+        if (VECTORIZED) {
+            VectorPricingKernel.totalPrices(rules, prices, cityIds, floors, insulated, panels, totals, from, to);
+        } else {
+            scalarTotalPrices(rules, prices, cityIds, floors, insulated, panels, totals, from, to);
+        }
+    }
+
+    /**
+     * Prices a range of rows one at a time, without the Vector API.
+     *
+     * @param rules     the pricing rules
+     * @param prices    the base prices
+     * @param cityIds   the {@link CityDictionary} ids of the cities
+     * @param floors    the floors of the panels; ignored for other rows
+     * @param insulated whether a panel is insulated; ignored for other rows
+     * @param panels    whether a row is a {@link Panel}
+     * @param totals    receives the total prices
+     * @param from      the first row, inclusive
+     * @param to        the last row, exclusive
+     */
+    public static void scalarTotalPrices(PricingRules rules, double[] prices, int[] cityIds, int[] floors,
+                                         boolean[] insulated, boolean[] panels, int[] totals, int from, int to) {
+        double insulation = rules.insulationMultiplier();
+        for (int i = from; i < to; i++) {
+            int total = (int) Math.round(prices[i] * rules.cityMultiplier(cityIds[i]));
+            if (panels[i]) {
+                total = (int) (total * rules.floorMultiplier(floors[i]));
+                if (insulated[i]) {
+                    total = (int) (total * insulation);
+                }
+            }
+            totals[i] = total;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap indexes over the low-cardinality attributes of the rows of a {@link ListingStore}.
+ * <p>
+ * The index keeps one {@link RowBitmap} for every genre, every city, every {@link FloorBand} of the panels,
+ * the insulated panels and all rows. A filter that combines these attributes is evaluated with
+ * {@link RowBitmap#and(RowBitmap)}, {@link RowBitmap#or(RowBitmap)} and {@link RowBitmap#andNot(RowBitmap)}
+ * over the bitmaps, without reading a single row, and the resulting bitmap drives
+ * {@link ListingStore#analyze(RowBitmap)}, which only visits the matching rows. For example, the insulated
+ * flats of Budapest that are not on the top floor are
+ * </p>
+ * <pre>{@code
+ * index.genre(Genre.FLAT).and(index.city("Budapest")).and(index.insulated()).andNot(index.floorBand(FloorBand.TOP))
+ * }</pre>
+ * <p>
+ * The index listens to its store, so the bitmaps follow appended, changed and removed rows. The bitmaps it
+ * returns are its own and change with the store; they cannot be modified by callers. The index is not
+ * thread-safe.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class BitmapIndex implements ListingListener {
+
+    /**
+     * The floor bands of panels, as priced by the default {@link PricingRules}.
+     */
+    public enum FloorBand {
+        /** Floors up to 2; floors 0 to 2 are priced with a bonus. */
+        LOW,
+
+        /** Floors 3 to 9. */
+        MIDDLE,
+
+        /** Floor 10 and above; floor 10 is priced with a penalty. */
+        TOP;
+
+        /**
+         * Returns the band of a floor.
+         *
+         * @param floor the floor
+         * @return the band
+         */
+        public static FloorBand of(int floor) {
+            return floor <= 2 ? LOW : floor < 10 ? MIDDLE : TOP;
+        }
+    }
+
+    private static final RowBitmap EMPTY = new RowBitmap();
+
+    private final ListingStore store;
+    private final RowBitmap all = new RowBitmap();
+    private final RowBitmap insulated = new RowBitmap();
+    private final RowBitmap[] genres = new RowBitmap[RealEstate.Genre.values().length];
+    private final RowBitmap[] floorBands = new RowBitmap[FloorBand.values().length];
+    private RowBitmap[] cities = new RowBitmap[0];
+
+    /**
+     * Creates an index over the current rows of a store and keeps it up to date.
+     *
+     * @param store the store to index
+     */
+    public BitmapIndex(ListingStore store) {
+        this.store = store;
+        Arrays.setAll(genres, i -> new RowBitmap());
+        Arrays.setAll(floorBands, i -> new RowBitmap());
+        store.rows().forEach(row -> update(store, row, true));
+        store.addListener(this);
+    }
+
+    /**
+     * Stops following the store. The index keeps its current content.
+     */
+    public void detach() {
+        store.removeListener(this);
+    }
+
+    /**
+     * Returns all rows that have not been removed.
+     *
+     * @return the bitmap of all rows
+     */
+    public RowBitmap all() {
+        return all;
+    }
+
+    /**
+     * Returns the rows of a genre.
+     *
+     * @param genre the genre
+     * @return the bitmap of the rows
+     */
+    public RowBitmap genre(RealEstate.Genre genre) {
+        return genres[genre.ordinal()];
+    }
+
+    /**
+     * Returns the rows in a city, matched by {@link CityDictionary} id.
+     *
+     * @param city the city
+     * @return the bitmap of the rows, empty for an unknown city
+     */
+    public RowBitmap city(String city) {
+        return cityId(CityDictionary.find(city));
+    }
+
+    /**
+     * Returns the rows with a {@link CityDictionary} id.
+     *
+     * @param cityId the city id
+     * @return the bitmap of the rows, empty for an unknown id
+     */
+    public RowBitmap cityId(int cityId) {
+        return cityId >= 0 && cityId < cities.length && cities[cityId] != null ? cities[cityId] : EMPTY;
+    }
+
+    /**
+     * Returns the insulated panels.
+     *
+     * @return the bitmap of the rows
+     */
+    public RowBitmap insulated() {
+        return insulated;
+    }
+
+    /**
+     * Returns the panels on a band of floors. Rows that are not panels are in no band.
+     *
+     * @param band the floor band
+     * @return the bitmap of the rows
+     */
+    public RowBitmap floorBand(FloorBand band) {
+        return floorBands[band.ordinal()];
+    }
+
+    @Override
+    public void added(ListingStore store, int row) {
+        update(store, row, true);
+    }
+
+    @Override
+    public void removing(ListingStore store, int row) {
+        update(store, row, false);
+    }
+
+    @Override
+    public void updating(ListingStore store, int row) {
+        update(store, row, false);
+    }
+
+    @Override
+    public void updated(ListingStore store, int row) {
+        update(store, row, true);
+    }
+
+    /**
+     * Ignores bulk price changes, since no bitmap depends on the base price.
+     */
+    @Override
+    public void repricing(ListingStore store, RowBitmap rows) {
+    }
+
+    /**
+     * Ignores bulk price changes, since no bitmap depends on the base price.
+     */
+    @Override
+    public void repriced(ListingStore store, RowBitmap rows) {
+    }
+
+    @Override
+    public void cleared(ListingStore store) {
+        all.clear();
+        insulated.clear();
+        for (RowBitmap bitmap : genres) {
+            bitmap.clear();
+        }
+        for (RowBitmap bitmap : floorBands) {
+            bitmap.clear();
+        }
+        for (RowBitmap bitmap : cities) {
+            if (bitmap != null) {
+                bitmap.clear();
+            }
+        }
+    }
+
+    private void update(ListingStore store, int row, boolean add) {
+        set(all, row, add);
+        set(genres[store.genre(row).ordinal()], row, add);
+        int cityId = store.cityId(row);
+        if (cityId >= 0) {
+            if (cityId >= cities.length) {
+                cities = Arrays.copyOf(cities, Math.max(cityId + 1, cities.length * 2));
+            }
+            if (cities[cityId] == null) {
+                cities[cityId] = new RowBitmap();
+            }
+            set(cities[cityId], row, add);
+        }
+        if (store.isPanel(row)) {
+            set(floorBands[FloorBand.of(store.floor(row)).ordinal()], row, add);
+            if (store.isInsulated(row)) {
+                set(insulated, row, add);
+            }
+        }
+    }
+
+    private static void set(RowBitmap bitmap, int row, boolean add) {
+        if (add) {
+            bitmap.add(row);
+        } else {
+            bitmap.remove(row);
+        }
+    }
+}
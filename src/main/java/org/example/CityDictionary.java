@@ -0,0 +1,167 @@
+package org.example;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.*;
+
+/**
+ * Assigns a compact {@code int} id to every city, shared by the whole application.
+ * <p>
+ * Names are matched by a normalized key: surrounding whitespace is removed, accents are stripped and the
+ * result is lower-cased, so {@code Nyíregyháza}, {@code Nyiregyhaza} and {@code NYÍREGYHÁZA} are the same
+ * city. Normalization runs once per distinct spelling; later lookups of that spelling hit a map keyed by the
+ * exact string, whose hash code {@link String} caches. Properties, stores and filters keep the id, so pricing
+ * and grouping compare integers instead of strings.
+ * </p>
+ * <p>
+ * Ids are dense, start at 0 and are never reused. The cities with a pricing rule are registered first and
+ * have fixed ids, which can be used as {@code case} labels. The first spelling seen of a city is its display
+ * name. All methods are thread-safe.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class CityDictionary {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(CityDictionary.class.getName());
+
+    /**
+     * The id returned for a {@code null} or blank city.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * The id of Budapest.
+     */
+    public static final int BUDAPEST = 0;
+
+    /**
+     * The id of Debrecen.
+     */
+    public static final int DEBRECEN = 1;
+
+    /**
+     * The id of Nyíregyháza.
+     */
+    public static final int NYIREGYHAZA = 2;
+
+    private static final Map<String, Integer> bySpelling = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> byKey = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int size;
+
+    static {
+        register("Budapest");
+        register("Debrecen");
+        register("Nyíregyháza");
+    }
+
+    private CityDictionary() {
+    }
+
+    /**
+     * Returns the id of a city, assigning a new one on first use.
+     *
+     * @param city the city name in any spelling
+     * @return the id, or {@link #UNKNOWN} for a {@code null} or blank name
+     */
+    public static int id(String city) {
+        if (city == null) {
+            return UNKNOWN;
+        }
+        Integer id = bySpelling.get(city);
+        return id != null ? id : register(city);
+    }
+
+    /**
+     * Returns the id of a city without assigning one.
+     *
+     * @param city the city name in any spelling
+     * @return the id, or {@link #UNKNOWN} if the city has not been seen
+     */
+    public static int find(String city) {
+        if (city == null) {
+            return UNKNOWN;
+        }
+        Integer id = bySpelling.get(city);
+        if (id == null) {
+            id = byKey.get(key(city));
+        }
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * Returns the display name of a city id.
+     *
+     * @param id the id
+     * @return the first spelling seen of the city, or {@code null} for {@link #UNKNOWN}
+     * @throws IndexOutOfBoundsException if the id was never assigned
+     */
+    public static String name(int id) {
+        if (id == UNKNOWN) {
+            return null;
+        }
+        String name = id >= 0 && id < names.length ? names[id] : null;
+        if (name == null) {
+            throw new IndexOutOfBoundsException("Unknown city id " + id);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the number of distinct cities.
+     *
+     * @return the number of assigned ids
+     */
+    public static synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the normalized key of a city name: trimmed, without accents and in lower case.
+     *
+     * @param city the city name
+     * @return the key
+     */
+    public static String key(String city) {
+        String decomposed = Normalizer.normalize(city.strip(), Normalizer.Form.NFD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                key.append(c);
+            }
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static synchronized int register(String city) {
+        Integer id = bySpelling.get(city);
+        if (id != null) {
+            return id;
+        }
+        String key = key(city);
+        if (key.isEmpty()) {
+            return UNKNOWN;
+        }
+        id = byKey.get(key);
+        if (id == null) {
+            id = size;
+            if (id == names.length) {
+                names = Arrays.copyOf(names, id * 2);
+            }
+            names[id] = city;
+            size++;
+            byKey.put(key, id);
+            logger.fine(String.format("Registered city %d: %s", id, city));
+        }
+        bySpelling.put(city, id);
+        return id;
+    }
+}
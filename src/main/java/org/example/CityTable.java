@@ -0,0 +1,143 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Deduplicates city names while parsing raw feed bytes.
+ * <p>
+ * The table is an open-addressing hash map keyed directly by the UTF-8 bytes of the city field,
+ * so a city that has already been seen is resolved without decoding or allocating anything.
+ * A {@link String} is only created the first time a city is encountered, and every later
+ * occurrence returns that same instance.
+ * </p>
+ * <p>
+ * Instances are not thread-safe; each parser thread should use its own table. Tables used by parallel
+ * readers can share a concurrent map of canonical names, so that all threads agree on one instance per city
+ * while the per-line lookup stays thread-local.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class CityTable {
+
+    /**
+     * Initial number of slots; always a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[][] keys = new byte[INITIAL_CAPACITY][];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Canonical city names shared with other tables, or {@code null}.
+     */
+    private final Map<String, String> shared;
+
+    /**
+     * Creates a standalone table.
+     */
+    public CityTable() {
+        this(null);
+    }
+
+    /**
+     * Creates a table that canonicalizes new cities through a map shared with other tables.
+     *
+     * @param shared a thread-safe map of canonical city names, or {@code null} for a standalone table
+     */
+    public CityTable(Map<String, String> shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * Returns the city name stored in the given byte range, creating it on first use.
+     *
+     * @param buffer the buffer holding the UTF-8 encoded name
+     * @param start  the index of the first byte of the name
+     * @param end    the index after the last byte of the name
+     * @return the shared {@code String} instance for this city
+     */
+    public String resolve(ByteBuffer buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && sameBytes(keys[slot], buffer, start, end)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = new byte[end - start];
+        buffer.get(start, key);
+        String city = new String(key, StandardCharsets.UTF_8);
+        if (shared != null) {
+            String canonical = shared.putIfAbsent(city, city);
+            if (canonical != null) {
+                city = canonical;
+            }
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = city;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return city;
+    }
+
+    /**
+     * Returns the number of distinct cities seen so far.
+     *
+     * @return the number of distinct cities
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buffer.get(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameBytes(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        int[] oldHashes = hashes;
+        String[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        hashes = new int[oldKeys.length * 2];
+        values = new String[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            hashes[slot] = oldHashes[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
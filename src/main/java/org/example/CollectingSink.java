@@ -0,0 +1,116 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.logging.*;
+
+/**
+ * A {@link ListingSink} that materializes every decoded record and adds it to a collection.
+ * <p>
+ * Rejected lines are added to a {@link Quarantine} when one is given, and otherwise logged at SEVERE level
+ * one by one.
+ * </p>
+ * <p>
+ * When the collection is a {@link ListingStore}, records are appended to it as rows directly, without
+ * creating a property object first.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class CollectingSink implements ListingSink {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(CollectingSink.class.getName());
+
+    private final Collection<RealEstate> target;
+    private final ListingStore store;
+    private final Quarantine quarantine;
+    private int loadedCount;
+    private int rejectedCount;
+
+    /**
+     * Creates a sink adding to the given collection.
+     *
+     * @param target the collection receiving the created properties
+     */
+    public CollectingSink(Collection<RealEstate> target) {
+        this(target, null);
+    }
+
+    /**
+     * Creates a sink adding to the given collection and quarantining rejected lines.
+     *
+     * @param target     the collection receiving the created properties
+     * @param quarantine the quarantine receiving rejected lines, or {@code null} to log them
+     */
+    public CollectingSink(Collection<RealEstate> target, Quarantine quarantine) {
+        this.target = target;
+        this.store = target instanceof ListingStore listingStore ? listingStore : null;
+        this.quarantine = quarantine;
+    }
+
+    @Override
+    public void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre) {
+        if (store != null) {
+            store.realEstate(city, price, sqm, numberOfRooms, genre);
+        } else {
+            target.add(new RealEstate(city, price, sqm, numberOfRooms, genre));
+        }
+        loadedCount++;
+    }
+
+    @Override
+    public void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+                      int floor, boolean isInsulated) {
+        if (store != null) {
+            store.panel(city, price, sqm, numberOfRooms, genre, floor, isInsulated);
+        } else {
+            target.add(new Panel(city, price, sqm, numberOfRooms, genre, floor, isInsulated));
+        }
+        loadedCount++;
+    }
+
+    @Override
+    public void listing(RealEstate listing) {
+        target.add(listing);
+        loadedCount++;
+    }
+
+    @Override
+    public void rejected(long lineNumber, String line, RejectReason reason, String detail) {
+        rejectedCount++;
+        if (quarantine != null) {
+            quarantine.add(lineNumber, line, reason, detail);
+        } else {
+            logger.severe(String.format("Error parsing line %d: %s - Error: %s", lineNumber, line, detail));
+        }
+    }
+
+    /**
+     * Returns the collection receiving the created properties.
+     *
+     * @return the target collection
+     */
+    public Collection<RealEstate> getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the number of properties added to the collection.
+     *
+     * @return the number of loaded properties
+     */
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Returns the number of lines that were rejected.
+     *
+     * @return the number of rejected lines
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+}
@@ -0,0 +1,181 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link ListingStore} keeping every field in its own primitive array on the heap.
+ * <p>
+ * Prices and areas are {@code double[]}, rooms, floors and city ids {@code int[]} and genres a {@code byte[]}
+ * of ordinals. {@link BitSet}s record which rows are panels, which panels are insulated and which rows were
+ * removed. A row costs about 30 bytes in total, against object headers, references and a city string for a
+ * {@link RealEstate} in a {@link ListingRepository}, and a scan over one column reads contiguous memory.
+ * Cities are stored as {@link CityDictionary} ids.
+ * </p>
+ * <p>
+ * The store is also a {@code Collection<RealEstate>}, so it can back {@link RealEstateAgent}, see
+ * {@link AbstractListingStore}, which also describes how changes are locked. Reads are not synchronized.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class ColumnarListingStore extends AbstractListingStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final RealEstate.Genre[] GENRES = RealEstate.Genre.values();
+
+    /**
+     * The number of rows {@link #totalPrices()} hands to {@link BatchPricer} per parallel task.
+     */
+    private static final int PRICING_CHUNK = 1 << 16;
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private double[] sqms = new double[INITIAL_CAPACITY];
+    private int[] rooms = new int[INITIAL_CAPACITY];
+    private byte[] genres = new byte[INITIAL_CAPACITY];
+    private int[] cityIds = new int[INITIAL_CAPACITY];
+    private int[] floors = new int[INITIAL_CAPACITY];
+    private final BitSet panels = new BitSet();
+    private final BitSet insulated = new BitSet();
+    private final BitSet removed = new BitSet();
+
+    /**
+     * Creates an empty store.
+     */
+    public ColumnarListingStore() {
+    }
+
+    /**
+     * Creates an empty store whose changes hold a given lock, see {@link AbstractListingStore}.
+     *
+     * @param writeLock the lock held by every change; it must be reentrant
+     */
+    public ColumnarListingStore(Lock writeLock) {
+        super(writeLock);
+    }
+
+    @Override
+    protected void writeRow(int row, int cityId, double price, double sqm, int rooms, RealEstate.Genre genre,
+                            int floor, boolean panel, boolean insulated) {
+        if (row == prices.length) {
+            grow();
+        }
+        prices[row] = price;
+        sqms[row] = sqm;
+        this.rooms[row] = rooms;
+        genres[row] = (byte) genre.ordinal();
+        cityIds[row] = cityId;
+        floors[row] = floor;
+        panels.set(row, panel);
+        this.insulated.set(row, insulated);
+        removed.clear(row);
+    }
+
+    @Override
+    protected void writeCityId(int row, int cityId) {
+        cityIds[row] = cityId;
+    }
+
+    @Override
+    protected void writePrice(int row, double price) {
+        prices[row] = price;
+    }
+
+    @Override
+    protected void writeGenre(int row, RealEstate.Genre genre) {
+        genres[row] = (byte) genre.ordinal();
+    }
+
+    @Override
+    protected void writeRemoved(int row) {
+        removed.set(row);
+    }
+
+    @Override
+    protected void clearRows() {
+        panels.clear();
+        insulated.clear();
+        removed.clear();
+    }
+
+    private void grow() {
+        int capacity = prices.length * 2;
+        prices = Arrays.copyOf(prices, capacity);
+        sqms = Arrays.copyOf(sqms, capacity);
+        rooms = Arrays.copyOf(rooms, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        cityIds = Arrays.copyOf(cityIds, capacity);
+        floors = Arrays.copyOf(floors, capacity);
+    }
+
+    @Override
+    public boolean isRemoved(int row) {
+        return removed.get(checkRow(row));
+    }
+
+    @Override
+    public int cityId(int row) {
+        return cityIds[checkRow(row)];
+    }
+
+    @Override
+    public double price(int row) {
+        return prices[checkRow(row)];
+    }
+
+    @Override
+    public double sqm(int row) {
+        return sqms[checkRow(row)];
+    }
+
+    @Override
+    public int rooms(int row) {
+        return rooms[checkRow(row)];
+    }
+
+    @Override
+    public RealEstate.Genre genre(int row) {
+        return GENRES[genres[checkRow(row)]];
+    }
+
+    @Override
+    public boolean isPanel(int row) {
+        return panels.get(checkRow(row));
+    }
+
+    @Override
+    public int floor(int row) {
+        return floors[checkRow(row)];
+    }
+
+    @Override
+    public boolean isInsulated(int row) {
+        return insulated.get(checkRow(row));
+    }
+
+    /**
+     * Returns the total prices of all rows, priced straight from the columns by {@link BatchPricer} in parallel
+     * chunks.
+     *
+     * @return the total prices indexed by row, 0 for removed rows
+     */
+    @Override
+    public int[] totalPrices() {
+        int count = rowCount();
+        boolean[] panel = new boolean[count];
+        boolean[] insulatedPanel = new boolean[count];
+        panels.stream().takeWhile(row -> row < count).forEach(row -> panel[row] = true);
+        insulated.stream().takeWhile(row -> row < count).forEach(row -> insulatedPanel[row] = true);
+        PricingRules rules = PricingEngine.standard().rules();
+        int[] totals = new int[count];
+        IntStream.range(0, (count + PRICING_CHUNK - 1) / PRICING_CHUNK).parallel().forEach(chunk -> {
+            int from = chunk * PRICING_CHUNK;
+            BatchPricer.totalPrices(rules, prices, cityIds, floors, insulatedPanel, panel, totals, from,
+                    Math.min(count, from + PRICING_CHUNK));
+        });
+        removed.stream().takeWhile(row -> row < count).forEach(row -> totals[row] = 0);
+        return totals;
+    }
+}
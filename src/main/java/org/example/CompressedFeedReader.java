@@ -0,0 +1,217 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a gzip-compressed listing feed, decompressing and parsing it in two overlapping stages.
+ * <p>
+ * A dedicated thread decompresses the file into blocks of {@link #BLOCK_SIZE} bytes and hands them to
+ * the calling thread through a bounded queue of {@link #QUEUE_DEPTH} blocks; the calling thread parses each
+ * block with a {@link FeedParser} and returns it to a pool for reuse. While one block is parsed the next one
+ * is being inflated, so the total time approaches the slower of the two stages instead of their sum, and
+ * memory use stays fixed at the pooled blocks. A line split between two blocks is joined in a separate
+ * carry buffer.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#loadFromFile(String)
+ * @see RealEstateAgent#loadFromFile(String, ListingFilter)
+ */
+public final class CompressedFeedReader {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(CompressedFeedReader.class.getName());
+
+    /**
+     * Number of decompressed bytes handed over at once.
+     */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Number of decompressed blocks that may wait for the parser.
+     */
+    static final int QUEUE_DEPTH = 4;
+
+    private CompressedFeedReader() {
+    }
+
+    /**
+     * Tells whether a file is read by this reader rather than as plain text.
+     *
+     * @param path the feed file
+     * @return true if the file name ends with {@code .gz}
+     */
+    public static boolean isCompressed(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * Decompresses and parses every line of the given file into the sink.
+     *
+     * @param path the gzip-compressed feed file
+     * @param sink the sink receiving decoded records and rejected lines
+     * @return the number of lines read, including empty ones
+     * @throws IOException if the file cannot be read or is not valid gzip data
+     */
+    public static long read(Path path, ListingSink sink) throws IOException {
+        return read(path, ListingFilter.ALL, sink);
+    }
+
+    /**
+     * Decompresses the given file and parses the lines that the filter accepts into the sink.
+     *
+     * @param path   the gzip-compressed feed file
+     * @param filter the filter deciding which lines are decoded
+     * @param sink   the sink receiving decoded records and rejected lines
+     * @return the number of lines read, including empty and skipped ones
+     * @throws IOException if the file cannot be read or is not valid gzip data
+     */
+    public static long read(Path path, ListingFilter filter, ListingSink sink) throws IOException {
+        logger.info("Reading compressed feed file: " + path);
+        Decompressor decompressor = new Decompressor(path);
+        Thread thread = new Thread(decompressor, "feed-decompressor");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            FeedParser parser = new FeedParser(sink, new CityTable(), 0, filter);
+            byte[] carry = new byte[BLOCK_SIZE];
+            int carried = 0;
+            long bytes = 0;
+            for (Block block; (block = decompressor.take()) != Block.END; decompressor.recycle(block)) {
+                bytes += block.length;
+                int from = 0;
+                if (carried > 0) {
+                    int newline = indexOf(block.bytes, '\n', block.length);
+                    int end = newline < 0 ? block.length : newline + 1;
+                    if (carried + end > carry.length) {
+                        carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carried + end));
+                    }
+                    System.arraycopy(block.bytes, 0, carry, carried, end);
+                    carried += end;
+                    if (newline < 0) {
+                        continue;
+                    }
+                    parser.parse(ByteBuffer.wrap(carry), 0, carried, false);
+                    carried = 0;
+                    from = end;
+                }
+                int consumed = parser.parse(ByteBuffer.wrap(block.bytes), from, block.length, false);
+                carried = block.length - consumed;
+                if (carried > carry.length) {
+                    carry = new byte[Math.max(carry.length * 2, carried)];
+                }
+                System.arraycopy(block.bytes, consumed, carry, 0, carried);
+            }
+            parser.parse(ByteBuffer.wrap(carry), 0, carried, true);
+            logger.info(String.format("Parsed %d lines (%d decompressed bytes) from %s",
+                    parser.getLineNumber(), bytes, path));
+            return parser.getLineNumber();
+        } finally {
+            thread.interrupt();
+        }
+    }
+
+    private static int indexOf(byte[] bytes, char c, int limit) {
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A block of decompressed bytes.
+     */
+    private static final class Block {
+        static final Block END = new Block(0);
+
+        final byte[] bytes;
+        int length;
+
+        Block(int size) {
+            bytes = new byte[size];
+        }
+    }
+
+    /**
+     * Decompresses the input into pooled blocks until the end of the input or until interrupted. Whatever ends
+     * the decompression, {@link Block#END} is queued last, so the parser never waits for a block that will not
+     * come; a failure is kept and rethrown by {@link #take()}.
+     */
+    private static final class Decompressor implements Runnable {
+        private final Path path;
+        private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(QUEUE_DEPTH + 1);
+        private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        private volatile Throwable failure;
+
+        Decompressor(Path path) {
+            this.path = path;
+            for (int i = 0; i < QUEUE_DEPTH; i++) {
+                free.add(new Block(BLOCK_SIZE));
+            }
+        }
+
+        @Override
+        public void run() {
+            try (InputStream in = Files.newInputStream(path);
+                 InputStream gzip = new GZIPInputStream(in, 1 << 16)) {
+                while (true) {
+                    Block block = free.take();
+                    block.length = gzip.readNBytes(block.bytes, 0, block.bytes.length);
+                    if (block.length == 0) {
+                        break;
+                    }
+                    filled.put(block);
+                }
+            } catch (InterruptedException e) {
+                // The parser has stopped and no longer takes blocks.
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                filled.offer(Block.END);
+            }
+        }
+
+        /**
+         * Returns the next decompressed block, or {@link Block#END} after the last one. If decompression failed,
+         * the failure is rethrown instead of returning {@link Block#END}.
+         */
+        Block take() throws IOException {
+            Block block;
+            try {
+                block = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+            }
+            if (block == Block.END && failure != null) {
+                if (failure instanceof IOException e) {
+                    throw e;
+                } else if (failure instanceof RuntimeException e) {
+                    throw e;
+                } else if (failure instanceof Error e) {
+                    throw e;
+                }
+                throw new IOException("Error decompressing " + path, failure);
+            }
+            return block;
+        }
+
+        void recycle(Block block) {
+            free.add(block);
+        }
+    }
+}
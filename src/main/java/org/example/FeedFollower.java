@@ -0,0 +1,209 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.*;
+
+/**
+ * Follows a feed file that is being appended to and parses only the newly written bytes.
+ * <p>
+ * The follower remembers the byte offset it has read up to. Each {@link #poll()} reads the bytes between that
+ * offset and the current end of the file and parses the complete lines among them. A line that is still
+ * being written (no terminating {@code '\n'} yet) is kept in the buffer and completed by a later poll, so the
+ * cost of a poll is proportional to the amount of new data. Line numbers continue across polls.
+ * </p>
+ * <p>
+ * If the file shrinks below the remembered offset it is treated as truncated, and if it is replaced by a new
+ * file (a different file key, as after log rotation) it is treated as rotated. In both cases the follower
+ * starts over from the beginning of the file with fresh line numbers.
+ * </p>
+ * <p>
+ * {@link #follow()} drives the polls from a {@link WatchService} registered on the file's directory. Watch
+ * events are only used as wake-ups; the file is also polled every {@link #POLL_INTERVAL_MS} milliseconds in
+ * case the file system does not deliver them. The sink is called from the thread running {@link #follow()}.
+ * </p>
+ * <p>
+ * A follower may be given a lock that every poll holds while it parses and hands records to the sink, so the
+ * records of one poll reach the sink as one batch that code holding the same lock never sees half done. A
+ * closed follower no longer polls, and a poll waiting for the lock while the follower is closed reads nothing.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#followFile(String)
+ */
+public class FeedFollower implements Closeable {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(FeedFollower.class.getName());
+
+    /**
+     * Interval between polls when no watch event arrives.
+     */
+    static final long POLL_INTERVAL_MS = 1000;
+
+    private final Path file;
+    private final ListingSink sink;
+    private final Lock lock;
+    private ByteBuffer buffer = ByteBuffer.allocate(FeedStream.BUFFER_SIZE);
+    private FeedParser parser;
+    private long offset;
+    private Object fileKey;
+    private volatile boolean closed;
+    private volatile WatchService watcher;
+
+    /**
+     * Creates a follower that starts reading at the beginning of the file.
+     *
+     * @param file the feed file to follow; it does not need to exist yet
+     * @param sink the sink receiving records and rejected lines
+     */
+    public FeedFollower(Path file, ListingSink sink) {
+        this(file, sink, new ReentrantLock());
+    }
+
+    /**
+     * Creates a follower that starts reading at the beginning of the file and holds a lock during every poll.
+     *
+     * @param file the feed file to follow; it does not need to exist yet
+     * @param sink the sink receiving records and rejected lines
+     * @param lock the lock held while records are handed to the sink
+     */
+    public FeedFollower(Path file, ListingSink sink, Lock lock) {
+        this.file = file;
+        this.sink = sink;
+        this.lock = lock;
+        this.parser = new FeedParser(sink, new CityTable());
+    }
+
+    /**
+     * Reads and parses the bytes appended since the previous poll, holding the lock of the follower.
+     *
+     * @return the number of new bytes read, 0 once the follower is closed
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized long poll() throws IOException {
+        lock.lock();
+        try {
+            if (closed || Files.notExists(file)) {
+                return 0;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+                long size = channel.size();
+                if (fileKey != null && key != null && !Objects.equals(key, fileKey)) {
+                    logger.info("Feed file was replaced, restarting from the beginning: " + file);
+                    restart();
+                } else if (size < offset) {
+                    logger.info(String.format("Feed file was truncated from %d to %d bytes, restarting: %s",
+                            offset, size, file));
+                    restart();
+                }
+                fileKey = key;
+
+                long read = 0;
+                while (offset < size) {
+                    if (!buffer.hasRemaining()) {
+                        buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                    }
+                    int count = channel.read(buffer, offset);
+                    if (count <= 0) {
+                        break;
+                    }
+                    offset += count;
+                    read += count;
+                    int consumed = parser.parse(buffer, 0, buffer.position(), false);
+                    buffer.limit(buffer.position()).position(consumed);
+                    buffer.compact();
+                }
+                if (read > 0) {
+                    logger.info(String.format("Read %d new bytes from %s, now at offset %d (line %d)",
+                            read, file, offset, parser.getLineNumber()));
+                }
+                return read;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Polls the file whenever it changes, until {@link #close()} is called.
+     *
+     * @throws IOException if the directory cannot be watched or the file cannot be read
+     */
+    public void follow() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path name = file.getFileName();
+        logger.info("Following feed file: " + file);
+        try (WatchService service = directory.getFileSystem().newWatchService()) {
+            watcher = service;
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            poll();
+            while (!closed) {
+                WatchKey key = service.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    boolean relevant = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                    }
+                    key.reset();
+                    if (!relevant) {
+                        continue;
+                    }
+                }
+                poll();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // close() was called while waiting for events.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Stopped following feed file: " + file);
+    }
+
+    /**
+     * Returns the offset up to which the file has been read.
+     *
+     * @return the byte offset of the next read
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Stops {@link #follow()}.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        WatchService service = watcher;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private void restart() {
+        offset = 0;
+        buffer.clear();
+        parser = new FeedParser(sink, new CityTable());
+    }
+}
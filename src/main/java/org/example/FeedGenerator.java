@@ -0,0 +1,397 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.logging.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates synthetic listing feeds for load and scale testing.
+ * <p>
+ * The generated lines use the exact {@code REALESTATE#city#price#sqm#rooms#genre} and
+ * {@code PANEL#city#price#sqm#rooms#genre#floor#isInsulated} format of {@code realestates.txt}. Cities and
+ * genres are drawn from weighted distributions, prices, areas, room counts and floors uniformly from
+ * configurable ranges, and the share of {@code PANEL} lines and of insulated panels is configurable as well.
+ * The same seed and settings always produce the same file.
+ * </p>
+ * <p>
+ * Lines are formatted straight into a byte buffer from pre-encoded city and genre names, without creating
+ * any object per line, so a single thread writes several million lines per second.
+ * </p>
+ * <p>
+ * Usage: {@code java org.example.FeedGenerator key=value ...} with the keys
+ * </p>
+ * <ul>
+ *   <li>{@code lines} - number of lines to write (default 1,000,000)</li>
+ *   <li>{@code out} - output file; a name ending in {@code .gz} is compressed (default {@code generated.txt})</li>
+ *   <li>{@code seed} - random seed (default 42)</li>
+ *   <li>{@code cities} - weighted cities, e.g. {@code Budapest:5,Nyíregyháza:2,Debrecen:2}</li>
+ *   <li>{@code genres} - weighted genres, e.g. {@code FLAT:6,FAMILYHOUSE:3,FARM:1}</li>
+ *   <li>{@code price}, {@code sqm}, {@code rooms}, {@code floor} - inclusive ranges, e.g. {@code price=50000-400000}</li>
+ *   <li>{@code priceStep} - prices are multiples of this value (default 1000)</li>
+ *   <li>{@code panel} - share of {@code PANEL} lines between 0 and 1 (default 0.4)</li>
+ *   <li>{@code insulated} - share of insulated panels between 0 and 1 (default 0.5)</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public final class FeedGenerator {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(FeedGenerator.class.getName());
+
+    private static final byte[] REALESTATE = "REALESTATE#".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PANEL = "PANEL#".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] YES = "#yes\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NO = "#no\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Size of the output buffer; one line is far shorter than the slack kept at its end.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    private final long seed;
+    private byte[][] cities;
+    private double[] cityWeights;
+    private byte[][] genres;
+    private double[] genreWeights;
+    private int minPrice = 50_000;
+    private int maxPrice = 400_000;
+    private int priceStep = 1_000;
+    private int minSqm = 25;
+    private int maxSqm = 200;
+    private int minRooms = 1;
+    private int maxRooms = 6;
+    private int minFloor = 0;
+    private int maxFloor = 10;
+    private double panelShare = 0.4;
+    private double insulatedShare = 0.5;
+
+    /**
+     * Creates a generator with the default distributions.
+     *
+     * @param seed the random seed
+     */
+    public FeedGenerator(long seed) {
+        this.seed = seed;
+        Map<String, Double> cities = new LinkedHashMap<>();
+        cities.put("Budapest", 5.0);
+        cities.put("Debrecen", 2.0);
+        cities.put("Nyíregyháza", 2.0);
+        cities.put("Kisvárda", 0.5);
+        cities.put("Tiszaújváros", 0.5);
+        setCities(cities);
+        Map<RealEstate.Genre, Double> genres = new LinkedHashMap<>();
+        genres.put(RealEstate.Genre.FLAT, 6.0);
+        genres.put(RealEstate.Genre.FAMILYHOUSE, 3.0);
+        genres.put(RealEstate.Genre.FARM, 1.0);
+        setGenres(genres);
+    }
+
+    /**
+     * Sets the cities and their relative weights.
+     *
+     * @param weights the cities, mapped to non-negative weights
+     */
+    public void setCities(Map<String, Double> weights) {
+        cities = new byte[weights.size()][];
+        int i = 0;
+        for (String city : weights.keySet()) {
+            cities[i++] = city.getBytes(StandardCharsets.UTF_8);
+        }
+        cityWeights = cumulative(weights.values().stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Sets the genres and their relative weights.
+     *
+     * @param weights the genres, mapped to non-negative weights
+     */
+    public void setGenres(Map<RealEstate.Genre, Double> weights) {
+        genres = new byte[weights.size()][];
+        int i = 0;
+        for (RealEstate.Genre genre : weights.keySet()) {
+            genres[i++] = genre.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        genreWeights = cumulative(weights.values().stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Sets the range of prices; prices are multiples of the step.
+     *
+     * @param min  the lowest price
+     * @param max  the highest price
+     * @param step the granularity of prices
+     */
+    public void setPriceRange(int min, int max, int step) {
+        checkRange("price", min, max);
+        if (step <= 0) {
+            throw new IllegalArgumentException("Price step must be positive: " + step);
+        }
+        minPrice = min;
+        maxPrice = max;
+        priceStep = step;
+    }
+
+    /**
+     * Sets the range of areas in square meters.
+     *
+     * @param min the smallest area
+     * @param max the largest area
+     */
+    public void setSqmRange(int min, int max) {
+        checkRange("sqm", min, max);
+        minSqm = min;
+        maxSqm = max;
+    }
+
+    /**
+     * Sets the range of room counts.
+     *
+     * @param min the fewest rooms
+     * @param max the most rooms
+     */
+    public void setRoomRange(int min, int max) {
+        checkRange("rooms", min, max);
+        minRooms = min;
+        maxRooms = max;
+    }
+
+    /**
+     * Sets the range of floors of panels.
+     *
+     * @param min the lowest floor
+     * @param max the highest floor
+     */
+    public void setFloorRange(int min, int max) {
+        checkRange("floor", min, max);
+        minFloor = min;
+        maxFloor = max;
+    }
+
+    /**
+     * Sets the share of {@code PANEL} lines.
+     *
+     * @param share a value between 0 and 1
+     */
+    public void setPanelShare(double share) {
+        panelShare = checkShare("panel", share);
+    }
+
+    /**
+     * Sets the share of insulated panels.
+     *
+     * @param share a value between 0 and 1
+     */
+    public void setInsulatedShare(double share) {
+        insulatedShare = checkShare("insulated", share);
+    }
+
+    /**
+     * Writes a feed of the given number of lines.
+     *
+     * @param out   the stream receiving the feed; not closed
+     * @param lines the number of lines
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(OutputStream out, long lines) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] buffer = new byte[BUFFER_SIZE + MAX_LINE_LENGTH];
+        int length = 0;
+        int priceSteps = (maxPrice - minPrice) / priceStep + 1;
+        for (long i = 0; i < lines; i++) {
+            boolean panel = random.nextDouble() < panelShare;
+            length = put(buffer, length, panel ? PANEL : REALESTATE);
+            length = put(buffer, length, cities[pick(cityWeights, random.nextDouble())]);
+            buffer[length++] = '#';
+            length = putInt(buffer, length, minPrice + random.nextInt(priceSteps) * priceStep);
+            buffer[length++] = '#';
+            length = putInt(buffer, length, random.nextInt(minSqm, maxSqm + 1));
+            buffer[length++] = '#';
+            length = putInt(buffer, length, random.nextInt(minRooms, maxRooms + 1));
+            buffer[length++] = '#';
+            length = put(buffer, length, genres[pick(genreWeights, random.nextDouble())]);
+            if (panel) {
+                buffer[length++] = '#';
+                length = putInt(buffer, length, random.nextInt(minFloor, maxFloor + 1));
+                length = put(buffer, length, random.nextDouble() < insulatedShare ? YES : NO);
+            } else {
+                buffer[length++] = '\n';
+            }
+            if (length >= BUFFER_SIZE) {
+                out.write(buffer, 0, length);
+                length = 0;
+            }
+        }
+        out.write(buffer, 0, length);
+    }
+
+    /**
+     * Writes a feed of the given number of lines to a file, compressing it if the name ends in {@code .gz}.
+     *
+     * @param file  the file to create or replace
+     * @param lines the number of lines
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, long lines) throws IOException {
+        logger.info(String.format("Generating %d lines into %s", lines, file));
+        long start = System.nanoTime();
+        try (OutputStream out = CompressedFeedReader.isCompressed(file)
+                ? new GZIPOutputStream(Files.newOutputStream(file), 1 << 16)
+                : Files.newOutputStream(file)) {
+            write(out, lines);
+        }
+        logger.info(String.format("Generated %d lines into %s in %.1f s", lines, file,
+                (System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * Runs the generator.
+     *
+     * @param args {@code key=value} settings, see the class description
+     * @throws IOException if the output file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value but found: " + arg);
+            }
+            settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        long lines = Long.parseLong(settings.getOrDefault("lines", "1000000").replace("_", ""));
+        Path out = Path.of(settings.getOrDefault("out", "generated.txt"));
+        FeedGenerator generator = new FeedGenerator(Long.parseLong(settings.getOrDefault("seed", "42")));
+
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            String value = setting.getValue();
+            switch (setting.getKey()) {
+                case "lines", "out", "seed" -> {
+                }
+                case "cities" -> generator.setCities(weights(value, city -> city));
+                case "genres" -> generator.setGenres(weights(value, genre -> RealEstate.Genre.valueOf(genre.toUpperCase())));
+                case "price" -> {
+                    int[] range = range(value);
+                    generator.setPriceRange(range[0], range[1], Integer.parseInt(settings.getOrDefault("priceStep", "1000")));
+                }
+                case "priceStep" -> generator.setPriceRange(generator.minPrice, generator.maxPrice, Integer.parseInt(value));
+                case "sqm" -> generator.setSqmRange(range(value)[0], range(value)[1]);
+                case "rooms" -> generator.setRoomRange(range(value)[0], range(value)[1]);
+                case "floor" -> generator.setFloorRange(range(value)[0], range(value)[1]);
+                case "panel" -> generator.setPanelShare(Double.parseDouble(value));
+                case "insulated" -> generator.setInsulatedShare(Double.parseDouble(value));
+                default -> throw new IllegalArgumentException("Unknown setting: " + setting.getKey());
+            }
+        }
+
+        long start = System.nanoTime();
+        generator.write(out, lines);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %,d lines (%,d bytes) to %s in %.1f s, %,.0f lines/s%n",
+                lines, Files.size(out), out, seconds, lines / seconds);
+    }
+
+    private static <K> Map<K, Double> weights(String spec, java.util.function.Function<String, K> key) {
+        Map<K, Double> weights = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            weights.put(key.apply(colon < 0 ? entry : entry.substring(0, colon)),
+                    colon < 0 ? 1.0 : Double.parseDouble(entry.substring(colon + 1)));
+        }
+        return weights;
+    }
+
+    private static int[] range(String spec) {
+        int dash = spec.indexOf('-', 1);
+        if (dash < 0) {
+            int value = Integer.parseInt(spec);
+            return new int[]{value, value};
+        }
+        return new int[]{Integer.parseInt(spec.substring(0, dash)), Integer.parseInt(spec.substring(dash + 1))};
+    }
+
+    private static void checkRange(String name, int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Empty " + name + " range: " + min + "-" + max);
+        }
+    }
+
+    private static double checkShare(String name, double share) {
+        if (!(share >= 0 && share <= 1)) {
+            throw new IllegalArgumentException("The " + name + " share must be between 0 and 1: " + share);
+        }
+        return share;
+    }
+
+    /**
+     * Turns weights into a cumulative distribution ending at 1.
+     */
+    private static double[] cumulative(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Weights must not be negative: " + weight);
+            }
+            total += weight;
+        }
+        if (weights.length == 0 || total == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum / total;
+        }
+        cumulative[weights.length - 1] = 1;
+        return cumulative;
+    }
+
+    /**
+     * Returns the index of the first cumulative weight above {@code u}.
+     */
+    private static int pick(double[] cumulative, double u) {
+        int i = 0;
+        while (cumulative[i] <= u) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int put(byte[] buffer, int length, byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        return length + bytes.length;
+    }
+
+    /**
+     * Writes the decimal digits of an {@code int} into the buffer.
+     */
+    private static int putInt(byte[] buffer, int length, int value) {
+        if (value < 0) {
+            buffer[length++] = '-';
+            if (value == Integer.MIN_VALUE) {
+                return put(buffer, length, "2147483648".getBytes(StandardCharsets.US_ASCII));
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return length + digits;
+    }
+}
@@ -0,0 +1,251 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses listing lines directly from raw feed bytes.
+ * <p>
+ * The parser scans a {@link ByteBuffer} for {@code '\n'} and {@code '#'} and decodes each field in place
+ * with {@link FieldDecoders}: prices, areas, room counts and floors are accumulated straight into primitives,
+ * the genre and insulation flag are resolved through lookup tables, and city names are deduplicated through
+ * a {@link CityTable}. The type tag of each line selects a {@link RecordCodec} from a {@link RecordCodecs}
+ * registry, which decodes the remaining fields and hands the record to a {@link ListingSink}.
+ * </p>
+ * <p>
+ * The accepted format and error behaviour match {@link RealEstateAgent#loadFromFile(String)}: lines are
+ * trimmed, empty lines are skipped, type tags, genres and the insulation flag are case-insensitive, and any
+ * line that cannot be decoded is reported through {@link ListingSink#rejected(long, String, RejectReason, String)}
+ * instead of aborting the load. Values outside the plain decimal notation used by the feed (exponents,
+ * non-ASCII digits, etc.) fall back to the JDK parsers, so the decoded values are always identical to
+ * {@link Double#parseDouble(String)} and {@link Integer#parseInt(String)}.
+ * </p>
+ * <p>
+ * An optional {@link ListingFilter} is applied once the type, city and genre of a line are known; lines it
+ * rejects are dropped before any numeric field is parsed.
+ * </p>
+ * <p>
+ * A parser keeps track of the current line number across calls to {@link #parse(ByteBuffer, int, int, boolean)},
+ * so a feed may be fed to it in several consecutive buffers. Instances are not thread-safe.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class FeedParser {
+
+    private final ListingSink sink;
+    private final CityTable cities;
+    private final ListingFilter filter;
+    private final RecordCodecs codecs;
+    private final LineFields lineFields = new LineFields();
+
+    /**
+     * Bounds of the fields of the current line; only as many fields as the longest record type has are kept.
+     */
+    private final int[] fieldStart;
+    private final int[] fieldEnd;
+    private long lineNumber;
+
+    /**
+     * Creates a parser that starts counting lines at 1.
+     *
+     * @param sink   the sink receiving decoded records and rejected lines
+     * @param cities the table used to deduplicate city names
+     */
+    public FeedParser(ListingSink sink, CityTable cities) {
+        this(sink, cities, 0);
+    }
+
+    /**
+     * Creates a parser whose first line is reported as {@code linesBefore + 1}.
+     *
+     * @param sink        the sink receiving decoded records and rejected lines
+     * @param cities      the table used to deduplicate city names
+     * @param linesBefore the number of lines of the feed that precede the first parsed byte
+     */
+    public FeedParser(ListingSink sink, CityTable cities, long linesBefore) {
+        this(sink, cities, linesBefore, ListingFilter.ALL);
+    }
+
+    /**
+     * Creates a parser that only passes the lines accepted by a filter to the sink.
+     *
+     * @param sink        the sink receiving decoded records and rejected lines
+     * @param cities      the table used to deduplicate city names
+     * @param linesBefore the number of lines of the feed that precede the first parsed byte
+     * @param filter      the filter deciding which lines are decoded
+     */
+    public FeedParser(ListingSink sink, CityTable cities, long linesBefore, ListingFilter filter) {
+        this(sink, cities, linesBefore, filter, RecordCodecs.DEFAULT);
+    }
+
+    /**
+     * Creates a parser decoding the record types of the given registry.
+     *
+     * @param sink        the sink receiving decoded records and rejected lines
+     * @param cities      the table used to deduplicate city names
+     * @param linesBefore the number of lines of the feed that precede the first parsed byte
+     * @param filter      the filter deciding which lines are decoded
+     * @param codecs      the codecs of the record types in the feed
+     */
+    public FeedParser(ListingSink sink, CityTable cities, long linesBefore, ListingFilter filter,
+                      RecordCodecs codecs) {
+        this.sink = sink;
+        this.cities = cities;
+        this.lineNumber = linesBefore;
+        this.filter = filter;
+        this.codecs = codecs;
+        this.fieldStart = new int[codecs.maxFieldCount()];
+        this.fieldEnd = new int[codecs.maxFieldCount()];
+    }
+
+    /**
+     * Parses all complete lines in {@code buffer[from, to)}.
+     * <p>
+     * Lines and fields are delimited in a single pass over the bytes. A trailing line without a terminating
+     * {@code '\n'} is only parsed when {@code endOfInput} is true; otherwise it is left for the next call, and
+     * the returned position points at its first byte.
+     * </p>
+     *
+     * @param buffer     the buffer to read; its position and limit are not modified
+     * @param from       the index of the first byte to parse
+     * @param to         the index after the last byte to parse
+     * @param endOfInput whether the range ends the feed
+     * @return the index after the last consumed byte
+     */
+    public int parse(ByteBuffer buffer, int from, int to, boolean endOfInput) {
+        int lineStart = from;
+        int fieldBegin = from;
+        int fields = 0;
+        int nonEmptyFields = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '#') {
+                if (fields < fieldStart.length) {
+                    fieldStart[fields] = fieldBegin;
+                    fieldEnd[fields] = i;
+                }
+                fields++;
+                if (i > fieldBegin) {
+                    nonEmptyFields = fields;
+                }
+                fieldBegin = i + 1;
+            } else if (b == '\n') {
+                parseLine(buffer, lineStart, i, fieldBegin, fields, nonEmptyFields);
+                lineStart = i + 1;
+                fieldBegin = i + 1;
+                fields = 0;
+                nonEmptyFields = 0;
+            }
+        }
+        if (endOfInput && lineStart < to) {
+            parseLine(buffer, lineStart, to, fieldBegin, fields, nonEmptyFields);
+            lineStart = to;
+        }
+        return lineStart;
+    }
+
+    /**
+     * Returns the number of the last line parsed, including empty lines.
+     *
+     * @return the current line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Decodes one line whose separators have already been located.
+     *
+     * @param lastFieldBegin  the index of the first byte after the last {@code '#'}
+     * @param separators      the number of {@code '#'} bytes on the line
+     * @param nonEmptyFields  the number of fields up to the last non-empty one before {@code lastFieldBegin}
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end, int lastFieldBegin, int separators,
+                           int nonEmptyFields) {
+        lineNumber++;
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        // Trimming can only shorten the first and the last field, since '#' is not whitespace.
+        if (separators < fieldStart.length) {
+            fieldStart[separators] = Math.max(lastFieldBegin, start);
+            fieldEnd[separators] = end;
+        }
+        fieldStart[0] = start;
+        int fields = end > lastFieldBegin ? separators + 1 : nonEmptyFields;
+
+        RecordCodec<?> codec = codecs.get(buffer, fieldStart[0], fieldEnd[0]);
+        if (codec == null) {
+            reject(buffer, start, end, RejectReason.UNKNOWN_TYPE,
+                    FieldDecoders.text(buffer, fieldStart[0], fieldEnd[0]));
+            return;
+        }
+        if (fields < codec.fieldCount()) {
+            reject(buffer, start, end, RejectReason.MISSING_FIELDS,
+                    "Expected " + codec.fieldCount() + " fields but found " + fields);
+            return;
+        }
+
+        lineFields.reset(buffer);
+        try {
+            if (filter != ListingFilter.ALL && !filter.test(codec.type(), lineFields.city(), lineFields.genre(5))) {
+                return;
+            }
+            codec.decode(lineFields, sink);
+        } catch (RuntimeException e) {
+            reject(buffer, start, end, RejectReason.of(e), String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void reject(ByteBuffer buffer, int start, int end, RejectReason reason, String detail) {
+        sink.rejected(lineNumber, FieldDecoders.text(buffer, start, end), reason, detail);
+    }
+
+    /**
+     * The fields of the current line, decoded on demand from the field bounds found by {@link #parse}.
+     */
+    private final class LineFields implements RecordFields {
+        private ByteBuffer buffer;
+        private String city;
+
+        void reset(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.city = null;
+        }
+
+        @Override
+        public String city() {
+            if (city == null) {
+                city = cities.resolve(buffer, fieldStart[1], fieldEnd[1]);
+            }
+            return city;
+        }
+
+        @Override
+        public double decimal(int index) {
+            return FieldDecoders.parseDouble(buffer, fieldStart[index], fieldEnd[index]);
+        }
+
+        @Override
+        public int integer(int index) {
+            return FieldDecoders.parseInt(buffer, fieldStart[index], fieldEnd[index]);
+        }
+
+        @Override
+        public RealEstate.Genre genre(int index) {
+            return FieldDecoders.parseGenre(buffer, fieldStart[index], fieldEnd[index]);
+        }
+
+        @Override
+        public boolean flag(int index) {
+            return FieldDecoders.parseInsulated(buffer, fieldStart[index], fieldEnd[index]);
+        }
+    }
+}
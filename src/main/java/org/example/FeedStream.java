@@ -0,0 +1,167 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposes a listing feed as a lazily parsed {@link Stream} of properties.
+ * <p>
+ * The stream pulls bytes from the underlying {@link InputStream} only when its consumer asks for the next
+ * element. Bytes are read into a fixed buffer of {@link #BUFFER_SIZE} bytes and the complete lines in it are
+ * parsed by a {@link FeedParser}; the properties decoded from one buffer are handed out before the next read
+ * happens. A slow consumer therefore throttles reading, and memory use is bounded by the buffer size no
+ * matter how large the feed is. The buffer only grows if a single line does not fit into it.
+ * </p>
+ * <p>
+ * The returned streams are sequential and must be closed to release the input.
+ * </p>
+ *
+ * @version 1.0
+ * @see ListingAnalysis
+ */
+public final class FeedStream {
+
+    /**
+     * Size of the read buffer in bytes.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private FeedStream() {
+    }
+
+    /**
+     * Opens a stream over the properties of a feed file.
+     *
+     * @param path       the feed file
+     * @param rejections receives rejected lines, or {@code null} to ignore them
+     * @return a stream that must be closed after use
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<RealEstate> open(Path path, ListingSink rejections) throws IOException {
+        return stream(Files.newInputStream(path), rejections);
+    }
+
+    /**
+     * Creates a stream over the properties read from the given input.
+     * <p>
+     * Closing the stream closes the input.
+     * </p>
+     *
+     * @param in         the feed bytes
+     * @param rejections receives rejected lines, or {@code null} to ignore them
+     * @return a stream that must be closed after use
+     */
+    public static Stream<RealEstate> stream(InputStream in, ListingSink rejections) {
+        return StreamSupport.stream(new FeedSpliterator(in, rejections), false)
+                .onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Parses one buffer of input at a time, queueing the properties it contains.
+     */
+    private static final class FeedSpliterator implements Spliterator<RealEstate>, ListingSink {
+        private final InputStream in;
+        private final ListingSink rejections;
+        private final FeedParser parser;
+        private final ArrayDeque<RealEstate> pending = new ArrayDeque<>();
+        private byte[] bytes = new byte[BUFFER_SIZE];
+        private int consumed;
+        private int limit;
+        private boolean endOfInput;
+
+        FeedSpliterator(InputStream in, ListingSink rejections) {
+            this.in = in;
+            this.rejections = rejections;
+            this.parser = new FeedParser(this, new CityTable());
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super RealEstate> action) {
+            while (pending.isEmpty()) {
+                if (endOfInput) {
+                    return false;
+                }
+                fill();
+            }
+            action.accept(pending.poll());
+            return true;
+        }
+
+        /**
+         * Moves the unparsed tail of the buffer to its start, reads more bytes and parses the complete lines.
+         */
+        private void fill() {
+            System.arraycopy(bytes, consumed, bytes, 0, limit - consumed);
+            limit -= consumed;
+            consumed = 0;
+            if (limit == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            try {
+                int read = in.read(bytes, limit, bytes.length - limit);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    limit += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            consumed = parser.parse(ByteBuffer.wrap(bytes), 0, limit, endOfInput);
+        }
+
+        @Override
+        public Spliterator<RealEstate> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+
+        @Override
+        public void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre) {
+            pending.add(new RealEstate(city, price, sqm, numberOfRooms, genre));
+        }
+
+        @Override
+        public void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+                          int floor, boolean isInsulated) {
+            pending.add(new Panel(city, price, sqm, numberOfRooms, genre, floor, isInsulated));
+        }
+
+        @Override
+        public void listing(RealEstate listing) {
+            pending.add(listing);
+        }
+
+        @Override
+        public void rejected(long lineNumber, String line, RejectReason reason, String detail) {
+            if (rejections != null) {
+                rejections.rejected(lineNumber, line, reason, detail);
+            }
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Allocation-free decoders for the fields of the listing format.
+ * <p>
+ * Every decoder reads a field straight from a byte range (raw feed bytes, as used by {@link FeedParser}) or a
+ * char range (an already decoded line, as used by {@link RealEstateAgent#loadFromFile(String)}) and produces
+ * exactly the value the JDK call it replaces would produce:
+ * </p>
+ * <ul>
+ *   <li>{@link #parseDouble} replaces {@link Double#parseDouble(String)} for the price</li>
+ *   <li>{@link #parseInt} replaces {@link Integer#parseInt(String)} for area, rooms and floor</li>
+ *   <li>{@link #parseGenre} replaces {@code Genre.valueOf(field.toUpperCase())}</li>
+ *   <li>{@link #parseInsulated} replaces {@code field.equalsIgnoreCase("yes")}</li>
+ * </ul>
+ * <p>
+ * Numbers in the plain decimal notation of the feed are decoded directly; the genre and the insulation flag
+ * are resolved through precomputed {@link KeywordTable}s. Input outside that fast path (exponents, more than
+ * 15 significant digits, non-ASCII characters) is handed to the JDK method. Fields that cannot be valid at
+ * all, such as a number containing a letter the JDK grammar never accepts or an ASCII word that is not a genre,
+ * are rejected directly with an exception carrying the JDK's message but no stack trace, so a corrupt feed does
+ * not pay for a stack walk per bad field. Only the fallback and the error paths allocate.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class FieldDecoders {
+
+    /**
+     * Maximum number of digits decoded directly; any such integer is below 2<sup>53</sup>.
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = new double[MAX_FAST_DIGITS + 1];
+
+    /**
+     * ASCII characters that may occur in a string accepted by {@link Double#parseDouble(String)}, including
+     * hexadecimal notation, {@code NaN}, {@code Infinity} and the type suffixes.
+     */
+    private static final boolean[] DOUBLE_CHARS = new boolean[128];
+
+    private static final KeywordTable<RealEstate.Genre> GENRES;
+    private static final KeywordTable<Boolean> FLAGS;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+        Map<String, RealEstate.Genre> genres = new HashMap<>();
+        for (RealEstate.Genre genre : RealEstate.Genre.values()) {
+            genres.put(genre.name(), genre);
+        }
+        for (char c : "0123456789+-.xXpPabcdefABCDEFNInity".toCharArray()) {
+            DOUBLE_CHARS[c] = true;
+        }
+        GENRES = new KeywordTable<>(genres);
+        FLAGS = new KeywordTable<>(Map.of("YES", Boolean.TRUE, "NO", Boolean.FALSE));
+    }
+
+    private FieldDecoders() {
+    }
+
+    /**
+     * Decodes a base-10 {@code int} from a byte range, like {@link Integer#parseInt(String)}.
+     *
+     * @param buffer the buffer holding the field
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return the decoded value
+     * @throws NumberFormatException if the field is not a valid {@code int}
+     */
+    public static int parseInt(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalidNumber(text(buffer, start, end));
+        }
+        if (end - i > 9) {
+            return Integer.parseInt(text(buffer, start, end));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int c = buffer.get(i);
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                if (c < 0) {
+                    return Integer.parseInt(text(buffer, start, end));
+                }
+                throw invalidNumber(text(buffer, start, end));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes a base-10 {@code int} from a char range, like {@link Integer#parseInt(String)}.
+     *
+     * @param chars the characters holding the field
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the decoded value
+     * @throws NumberFormatException if the field is not a valid {@code int}
+     */
+    public static int parseInt(CharSequence chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars.charAt(i) == '-' || chars.charAt(i) == '+')) {
+            negative = chars.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalidNumber(chars.subSequence(start, end).toString());
+        }
+        if (end - i > 9) {
+            return Integer.parseInt(chars.subSequence(start, end).toString());
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int c = chars.charAt(i);
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                if (c > 0x7F) {
+                    return Integer.parseInt(chars.subSequence(start, end).toString());
+                }
+                throw invalidNumber(chars.subSequence(start, end).toString());
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes a decimal number from a byte range, like {@link Double#parseDouble(String)}.
+     * <p>
+     * When the digits form an integer of at most 15 digits, both the digits and the power of ten of the
+     * scale are exact doubles, so a single correctly rounded division yields the same value as the JDK.
+     * </p>
+     *
+     * @param buffer the buffer holding the field
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return the decoded value
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    public static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            int c = buffer.get(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || digitCount == MAX_FAST_DIGITS) {
+                return slowParseDouble(buffer, start, end);
+            }
+            digits = digits * 10 + digit;
+            digitCount++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digitCount == 0) {
+            return slowParseDouble(buffer, start, end);
+        }
+        double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes a decimal number from a char range, like {@link Double#parseDouble(String)}.
+     *
+     * @param chars the characters holding the field
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the decoded value
+     * @throws NumberFormatException if the field is not a valid number
+     * @see #parseDouble(ByteBuffer, int, int)
+     */
+    public static double parseDouble(CharSequence chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars.charAt(i) == '-' || chars.charAt(i) == '+')) {
+            negative = chars.charAt(i) == '-';
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            int c = chars.charAt(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || digitCount == MAX_FAST_DIGITS) {
+                return slowParseDouble(chars, start, end);
+            }
+            digits = digits * 10 + digit;
+            digitCount++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digitCount == 0) {
+            return slowParseDouble(chars, start, end);
+        }
+        double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Hands a byte range to the JDK, unless it contains an ASCII character no valid double can contain.
+     * Ranges with whitespace or non-ASCII bytes always go to the JDK, which trims and reports them itself.
+     */
+    private static double slowParseDouble(ByteBuffer buffer, int start, int end) {
+        boolean invalid = false;
+        for (int i = start; i < end; i++) {
+            int c = buffer.get(i);
+            if (c <= ' ') {
+                return Double.parseDouble(text(buffer, start, end));
+            }
+            invalid |= !DOUBLE_CHARS[c];
+        }
+        if (invalid) {
+            throw invalidNumber(text(buffer, start, end));
+        }
+        return Double.parseDouble(text(buffer, start, end));
+    }
+
+    /**
+     * Hands a char range to the JDK, unless it contains an ASCII character no valid double can contain.
+     */
+    private static double slowParseDouble(CharSequence chars, int start, int end) {
+        String text = chars.subSequence(start, end).toString();
+        boolean invalid = false;
+        for (int i = start; i < end; i++) {
+            int c = chars.charAt(i);
+            if (c <= ' ' || c > 0x7F) {
+                return Double.parseDouble(text);
+            }
+            invalid |= !DOUBLE_CHARS[c];
+        }
+        if (invalid) {
+            throw invalidNumber(text);
+        }
+        return Double.parseDouble(text);
+    }
+
+    /**
+     * Resolves a genre from a byte range, ignoring case.
+     *
+     * @param buffer the buffer holding the field
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return the genre
+     * @throws IllegalArgumentException if the field does not name a genre
+     */
+    public static RealEstate.Genre parseGenre(ByteBuffer buffer, int start, int end) {
+        RealEstate.Genre genre = GENRES.get(buffer, start, end);
+        if (genre != null) {
+            return genre;
+        }
+        String name = text(buffer, start, end).toUpperCase();
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) < 0) {
+                return RealEstate.Genre.valueOf(name);
+            }
+        }
+        throw invalidGenre(name);
+    }
+
+    /**
+     * Resolves a genre from a char range, ignoring case.
+     *
+     * @param chars the characters holding the field
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the genre
+     * @throws IllegalArgumentException if the field does not name a genre
+     */
+    public static RealEstate.Genre parseGenre(CharSequence chars, int start, int end) {
+        RealEstate.Genre genre = GENRES.get(chars, start, end);
+        if (genre != null) {
+            return genre;
+        }
+        String name = chars.subSequence(start, end).toString().toUpperCase();
+        for (int i = start; i < end; i++) {
+            if (chars.charAt(i) > 0x7F) {
+                return RealEstate.Genre.valueOf(name);
+            }
+        }
+        throw invalidGenre(name);
+    }
+
+    /**
+     * Decodes the insulation flag from a byte range: {@code yes} in any case is true, anything else false.
+     *
+     * @param buffer the buffer holding the field
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return whether the field says {@code yes}
+     */
+    public static boolean parseInsulated(ByteBuffer buffer, int start, int end) {
+        Boolean flag = FLAGS.get(buffer, start, end);
+        if (flag != null) {
+            return flag;
+        }
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) < 0) {
+                return text(buffer, start, end).equalsIgnoreCase("yes");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes the insulation flag from a char range: {@code yes} in any case is true, anything else false.
+     *
+     * @param chars the characters holding the field
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return whether the field says {@code yes}
+     */
+    public static boolean parseInsulated(CharSequence chars, int start, int end) {
+        Boolean flag = FLAGS.get(chars, start, end);
+        if (flag != null) {
+            return flag;
+        }
+        for (int i = start; i < end; i++) {
+            if (chars.charAt(i) > 0x7F) {
+                return chars.subSequence(start, end).toString().equalsIgnoreCase("yes");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the exception {@link Integer#parseInt(String)} and {@link Double#parseDouble(String)} throw for
+     * the given input.
+     */
+    private static NumberFormatException invalidNumber(String text) {
+        return new InvalidNumberException("For input string: \"" + text + "\"");
+    }
+
+    /**
+     * Creates the exception {@link RealEstate.Genre#valueOf(String)} throws for the given name.
+     */
+    private static IllegalArgumentException invalidGenre(String name) {
+        return new InvalidGenreException("No enum constant " + RealEstate.Genre.class.getCanonicalName() + "." + name);
+    }
+
+    /**
+     * Decodes a byte range as UTF-8; only used on the fallback and error paths.
+     */
+    static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A {@link NumberFormatException} without a stack trace, thrown for fields that are rejected directly.
+     */
+    private static final class InvalidNumberException extends NumberFormatException {
+
+        private static final long serialVersionUID = 1L;
+
+        InvalidNumberException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * An {@link IllegalArgumentException} without a stack trace, thrown for genres that are rejected directly.
+     */
+    private static final class InvalidGenreException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        InvalidGenreException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.example;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A three-dimensional k-d tree over the total price, area and number of rooms of the rows of a
+ * {@link ListingStore}, answering orthogonal range queries such as "total price between X and Y, area
+ * between A and B, at least N rooms".
+ * <p>
+ * The tree is implicit: the points are kept in one array of interleaved coordinates, permuted so that every
+ * range of the array is a subtree whose middle element is the median along the dimension of its depth, with
+ * smaller points before it and larger ones after it. Ranges of at most {@value #LEAF_SIZE} points are leaves
+ * and are scanned. A query only descends into the halves its box overlaps, so a selective query visits a
+ * small fraction of the points instead of every row.
+ * </p>
+ * <p>
+ * The tree is a snapshot: it is bulk-built by {@link #build(ListingStore)}, which reads the rows and
+ * partitions the subtrees on the common {@link ForkJoinPool} in parallel, and it is not changed afterwards.
+ * It listens to its store only to notice changes; after any change {@link #isStale()} returns true and the
+ * tree should be rebuilt. Queries on a tree that is not stale may run concurrently.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#findInRange(int, int, double, double, int)
+ */
+public final class KdTree implements ListingListener {
+
+    /**
+     * The number of coordinates of a point: total price, area and rooms.
+     */
+    private static final int DIMENSIONS = 3;
+
+    /**
+     * Subtrees of at most this many points are scanned rather than split.
+     */
+    private static final int LEAF_SIZE = 16;
+
+    /**
+     * Subtrees of at least this many points are partitioned as a separate fork-join task.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final ListingStore store;
+    private final double[] coordinates;
+    private final int[] rows;
+    private volatile boolean stale;
+
+    private KdTree(ListingStore store, double[] coordinates, int[] rows) {
+        this.store = store;
+        this.coordinates = coordinates;
+        this.rows = rows;
+    }
+
+    /**
+     * Builds a tree over the current rows of a store.
+     * <p>
+     * The store must not change while the tree is built.
+     * </p>
+     *
+     * @param store the store
+     * @return the tree
+     */
+    public static KdTree build(ListingStore store) {
+        int[] rows = store.rows().toArray();
+        int[] totalPrices = store.totalPrices();
+        double[] coordinates = new double[rows.length * DIMENSIONS];
+        IntStream.range(0, rows.length).parallel().forEach(i -> {
+            int row = rows[i];
+            coordinates[i * DIMENSIONS] = totalPrices[row];
+            coordinates[i * DIMENSIONS + 1] = store.sqm(row);
+            coordinates[i * DIMENSIONS + 2] = store.rooms(row);
+        });
+        KdTree tree = new KdTree(store, coordinates, rows);
+        ForkJoinPool.commonPool().invoke(tree.new Partition(0, rows.length, 0));
+        store.addListener(tree);
+        return tree;
+    }
+
+    /**
+     * Stops following the store.
+     */
+    public void detach() {
+        store.removeListener(this);
+    }
+
+    /**
+     * Returns whether the store changed since the tree was built.
+     *
+     * @return true if the tree no longer reflects the store
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Returns the number of points in the tree.
+     *
+     * @return the number of rows the tree was built from
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Passes the rows inside a box to an action. All bounds are inclusive.
+     *
+     * @param minPrice the lowest total price
+     * @param maxPrice the highest total price
+     * @param minSqm   the smallest area
+     * @param maxSqm   the largest area
+     * @param minRooms the fewest rooms
+     * @param maxRooms the most rooms
+     * @param action   the action
+     * @return the number of rows passed
+     */
+    public int forEachInRange(int minPrice, int maxPrice, double minSqm, double maxSqm, int minRooms, int maxRooms,
+                              IntConsumer action) {
+        double[] min = {minPrice, minSqm, minRooms};
+        double[] max = {maxPrice, maxSqm, maxRooms};
+        return query(0, rows.length, 0, min, max, action);
+    }
+
+    /**
+     * Returns the rows inside a box, in no particular order. All bounds are inclusive.
+     *
+     * @param minPrice the lowest total price
+     * @param maxPrice the highest total price
+     * @param minSqm   the smallest area
+     * @param maxSqm   the largest area
+     * @param minRooms the fewest rooms
+     * @param maxRooms the most rooms
+     * @return the rows
+     */
+    public IntStream inRange(int minPrice, int maxPrice, double minSqm, double maxSqm, int minRooms, int maxRooms) {
+        IntStream.Builder result = IntStream.builder();
+        forEachInRange(minPrice, maxPrice, minSqm, maxSqm, minRooms, maxRooms, result::add);
+        return result.build();
+    }
+
+    @Override
+    public void added(ListingStore store, int row) {
+        stale = true;
+    }
+
+    @Override
+    public void removing(ListingStore store, int row) {
+        stale = true;
+    }
+
+    @Override
+    public void updating(ListingStore store, int row) {
+        stale = true;
+    }
+
+    @Override
+    public void repricing(ListingStore store, RowBitmap rows) {
+        stale = true;
+    }
+
+    @Override
+    public void cleared(ListingStore store) {
+        stale = true;
+    }
+
+    private int query(int from, int to, int dimension, double[] min, double[] max, IntConsumer action) {
+        if (to - from <= LEAF_SIZE) {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (inside(i, min, max)) {
+                    action.accept(rows[i]);
+                    count++;
+                }
+            }
+            return count;
+        }
+        int mid = (from + to) >>> 1;
+        double split = coordinates[mid * DIMENSIONS + dimension];
+        int next = (dimension + 1) % DIMENSIONS;
+        int count = 0;
+        if (min[dimension] <= split) {
+            count += query(from, mid, next, min, max, action);
+        }
+        if (inside(mid, min, max)) {
+            action.accept(rows[mid]);
+            count++;
+        }
+        if (max[dimension] >= split) {
+            count += query(mid + 1, to, next, min, max, action);
+        }
+        return count;
+    }
+
+    private boolean inside(int point, double[] min, double[] max) {
+        int base = point * DIMENSIONS;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double value = coordinates[base + d];
+            if (value < min[d] || value > max[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the median of a subtree along its dimension to the middle, then partitions both halves.
+     */
+    private final class Partition extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int dimension;
+
+        Partition(int from, int to, int dimension) {
+            this.from = from;
+            this.to = to;
+            this.dimension = dimension;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, dimension);
+            int next = (dimension + 1) % DIMENSIONS;
+            Partition left = new Partition(from, mid, next);
+            Partition right = new Partition(mid + 1, to, next);
+            if (to - from >= PARALLEL_THRESHOLD) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+        }
+    }
+
+    /**
+     * Rearranges the points between {@code low} and {@code high}, both inclusive, so that the point at
+     * {@code k} is preceded by no larger and followed by no smaller points along a dimension (Hoare's
+     * selection).
+     */
+    private void select(int low, int high, int k, int dimension) {
+        while (low < high) {
+            double pivot = coordinates[((low + high) >>> 1) * DIMENSIONS + dimension];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (coordinates[i * DIMENSIONS + dimension] < pivot) {
+                    i++;
+                }
+                while (coordinates[j * DIMENSIONS + dimension] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+        int baseA = a * DIMENSIONS;
+        int baseB = b * DIMENSIONS;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double value = coordinates[baseA + d];
+            coordinates[baseA + d] = coordinates[baseB + d];
+            coordinates[baseB + d] = value;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * A small, immutable lookup table from case-insensitive ASCII keywords to values.
+ * <p>
+ * Keywords are hashed on their length and their first and last characters with ASCII case folded, so a
+ * lookup costs one hash, usually one probe and one comparison of the candidate, straight from a byte or
+ * char range and without creating a {@code String}. It replaces chains of {@code toUpperCase()},
+ * {@code equalsIgnoreCase} and {@code valueOf} calls for fields with a handful of legal values.
+ * </p>
+ * <p>
+ * Lookups only match pure ASCII input. A range containing other characters is reported as a miss, and
+ * callers that must honour {@link String#equalsIgnoreCase(String)} for such input fall back to it.
+ * </p>
+ *
+ * @param <T> the type of the values
+ * @version 1.0
+ */
+public final class KeywordTable<T> {
+
+    private final byte[][] keys;
+    private final Object[] values;
+    private final int mask;
+
+    /**
+     * Creates a table holding the given keywords.
+     *
+     * @param entries the keywords, which must be ASCII, and their values
+     */
+    public KeywordTable(Map<String, T> entries) {
+        int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 4);
+        keys = new byte[capacity][];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            byte[] key = entry.getKey().toUpperCase().getBytes(StandardCharsets.US_ASCII);
+            int slot = hash(key.length, key[0], key[key.length - 1]) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = entry.getValue();
+        }
+    }
+
+    /**
+     * Looks up the keyword stored in a byte range.
+     *
+     * @param buffer the buffer holding the keyword
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return the value of the keyword, or {@code null} if the range is not one of the keywords
+     */
+    @SuppressWarnings("unchecked")
+    public T get(ByteBuffer buffer, int start, int end) {
+        if (start == end) {
+            return null;
+        }
+        int slot = hash(end - start, buffer.get(start), buffer.get(end - 1)) & mask;
+        for (byte[] key; (key = keys[slot]) != null; slot = (slot + 1) & mask) {
+            if (matches(key, buffer, start, end)) {
+                return (T) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the keyword stored in a char range.
+     *
+     * @param chars the characters holding the keyword
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the value of the keyword, or {@code null} if the range is not one of the keywords
+     */
+    @SuppressWarnings("unchecked")
+    public T get(CharSequence chars, int start, int end) {
+        if (start == end) {
+            return null;
+        }
+        int slot = hash(end - start, chars.charAt(start), chars.charAt(end - 1)) & mask;
+        for (byte[] key; (key = keys[slot]) != null; slot = (slot + 1) & mask) {
+            if (matches(key, chars, start, end)) {
+                return (T) values[slot];
+            }
+        }
+        return null;
+    }
+
+    private static int hash(int length, int first, int last) {
+        return (length * 31 + (first & 0xDF)) * 31 + (last & 0xDF);
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (toUpperAscii(buffer.get(start + i)) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(byte[] key, CharSequence chars, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (toUpperAscii(chars.charAt(start + i)) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toUpperAscii(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+}
@@ -0,0 +1,159 @@
+package org.example;
+
+import java.util.DoubleSummaryStatistics;
+
+/**
+ * Accumulates the statistics reported by {@link RealEstateAgent#displayResults()} in constant memory.
+ * <p>
+ * The analyses are computed in two passes over the properties. The first pass, {@link #add(RealEstate)},
+ * keeps running sums and the current extremes, which is enough for the average base price, the cheapest
+ * total price, the most expensive Budapest property and the overall total. The condominium listing needs
+ * the average total price up front, so it is decided during a second pass with
+ * {@link #isAffordableCondo(RealEstate, int)}. Neither pass retains the properties themselves, which lets the
+ * analyses run over a {@link FeedStream} of any size.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class ListingAnalysis {
+
+    private long count;
+    private final DoubleSummaryStatistics basePrices = new DoubleSummaryStatistics();
+    private long totalPriceSum;
+    private RealEstate cheapest;
+    private int cheapestTotalPrice;
+    private int mostExpensiveBudapestPrice;
+    private double mostExpensiveBudapestSqmPerRoom = Double.NaN;
+
+    /**
+     * Adds a property during the first pass.
+     *
+     * @param realEstate the property to add
+     */
+    public void add(RealEstate realEstate) {
+        if (add(realEstate.getPrice(), realEstate.getTotalPrice(), realEstate.cityId,
+                realEstate.sqm, realEstate.numberOfRooms)) {
+            cheapest = realEstate;
+        }
+    }
+
+    /**
+     * Adds a property given by its fields during the first pass, for stores that keep no property objects.
+     * The caller records the cheapest property with {@link #setCheapest(RealEstate)} once the pass is done.
+     *
+     * @param price         the base price
+     * @param totalPrice    the total price
+     * @param cityId        the {@link CityDictionary} id of the city
+     * @param sqm           the area in square meters
+     * @param numberOfRooms the number of rooms
+     * @return true if the property is the cheapest so far
+     */
+    boolean add(double price, int totalPrice, int cityId, double sqm, int numberOfRooms) {
+        basePrices.accept(price);
+        count++;
+        totalPriceSum += totalPrice;
+
+        if (cityId == CityDictionary.BUDAPEST
+                && (Double.isNaN(mostExpensiveBudapestSqmPerRoom) || totalPrice > mostExpensiveBudapestPrice)) {
+            mostExpensiveBudapestPrice = totalPrice;
+            mostExpensiveBudapestSqmPerRoom = numberOfRooms != 0 ? sqm / numberOfRooms : 0;
+        }
+        if (count == 1 || totalPrice < cheapestTotalPrice) {
+            cheapestTotalPrice = totalPrice;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the cheapest property found by a pass over {@link #add(double, int, int, double, int)}.
+     *
+     * @param cheapest the cheapest property
+     */
+    void setCheapest(RealEstate cheapest) {
+        this.cheapest = cheapest;
+    }
+
+    /**
+     * Returns the number of properties added.
+     *
+     * @return the number of properties
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the average base price (analysis 1).
+     *
+     * @return the average base price, or 0 if no property was added
+     */
+    public double getAverageBasePrice() {
+        return basePrices.getAverage();
+    }
+
+    /**
+     * Returns the cheapest property by total price (analysis 2).
+     *
+     * @return the cheapest property, or {@code null} if no property was added
+     */
+    public RealEstate getCheapest() {
+        return cheapest;
+    }
+
+    /**
+     * Returns the total price of the cheapest property (analysis 2).
+     *
+     * @return the lowest total price, or 0 if no property was added
+     */
+    public int getCheapestTotalPrice() {
+        return count == 0 ? 0 : cheapestTotalPrice;
+    }
+
+    /**
+     * Returns whether any property in Budapest was added (analysis 3).
+     *
+     * @return true if a Budapest property was seen
+     */
+    public boolean hasBudapestProperty() {
+        return !Double.isNaN(mostExpensiveBudapestSqmPerRoom);
+    }
+
+    /**
+     * Returns the average square meters per room of the most expensive Budapest property (analysis 3).
+     *
+     * @return the average sqm per room, or {@code NaN} if there is no Budapest property
+     */
+    public double getMostExpensiveBudapestSqmPerRoom() {
+        return mostExpensiveBudapestSqmPerRoom;
+    }
+
+    /**
+     * Returns the sum of all total prices (analysis 4).
+     *
+     * @return the total price of all properties
+     */
+    public long getTotalPriceSum() {
+        return totalPriceSum;
+    }
+
+    /**
+     * Returns the average total price, which is the threshold of analysis 5.
+     *
+     * @return the average total price, or 0 if no property was added
+     */
+    public double getAverageTotalPrice() {
+        return count == 0 ? 0.0 : (double) totalPriceSum / count;
+    }
+
+    /**
+     * Decides during the second pass whether a property belongs to the condominium listing (analysis 5).
+     *
+     * @param realEstate the property to check
+     * @param totalPrice the total price of the property
+     * @return true if the property is a flat priced at or below the average total price
+     */
+    public boolean isAffordableCondo(RealEstate realEstate, int totalPrice) {
+        return realEstate.getGenre() == RealEstate.Genre.FLAT && totalPrice <= getAverageTotalPrice();
+    }
+}
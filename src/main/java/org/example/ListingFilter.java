@@ -0,0 +1,80 @@
+package org.example;
+
+/**
+ * Selects the lines of a feed that should be loaded, based on the fields that are cheap to decode.
+ * <p>
+ * A filter sees the record type, the city and the genre of a line before its price, area, room count and
+ * floor are parsed and before any object is created, so lines it rejects are skipped at the cost of the
+ * line scan plus a city and a genre lookup. Skipped lines are neither loaded nor quarantined.
+ * </p>
+ * <p>
+ * Filters are combined with {@link #and(ListingFilter)}, for example
+ * {@code ListingFilter.inCity("Budapest").and(ListingFilter.ofGenre(RealEstate.Genre.FLAT))}.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#loadFromFile(String, ListingFilter)
+ */
+@FunctionalInterface
+public interface ListingFilter {
+
+    /**
+     * A filter accepting every line.
+     */
+    ListingFilter ALL = (type, city, genre) -> true;
+
+    /**
+     * Decides whether a line is loaded.
+     *
+     * @param type  {@code RealEstate.class} for {@code REALESTATE} lines, {@code Panel.class} for {@code PANEL} lines
+     * @param city  the city of the line
+     * @param genre the genre of the line
+     * @return true if the line should be decoded and loaded
+     */
+    boolean test(Class<? extends RealEstate> type, String city, RealEstate.Genre genre);
+
+    /**
+     * Returns a filter accepting the lines both this filter and {@code other} accept.
+     *
+     * @param other the other filter
+     * @return the combined filter
+     */
+    default ListingFilter and(ListingFilter other) {
+        return (type, city, genre) -> test(type, city, genre) && other.test(type, city, genre);
+    }
+
+    /**
+     * Returns a filter accepting lines of one record type.
+     *
+     * @param type {@code RealEstate.class} or {@code Panel.class}
+     * @return the filter
+     */
+    static ListingFilter ofType(Class<? extends RealEstate> type) {
+        return (lineType, city, genre) -> lineType == type;
+    }
+
+    /**
+     * Returns a filter accepting lines in one city, ignoring case and accents.
+     * <p>
+     * Cities are compared by {@link CityDictionary} id, so {@code inCity("Nyiregyhaza")} also accepts lines
+     * spelling the city {@code Nyíregyháza}.
+     * </p>
+     *
+     * @param city the city
+     * @return the filter
+     */
+    static ListingFilter inCity(String city) {
+        int cityId = CityDictionary.id(city);
+        return (type, lineCity, genre) -> CityDictionary.id(lineCity) == cityId;
+    }
+
+    /**
+     * Returns a filter accepting lines of one genre.
+     *
+     * @param genre the genre
+     * @return the filter
+     */
+    static ListingFilter ofGenre(RealEstate.Genre genre) {
+        return (type, city, lineGenre) -> lineGenre == genre;
+    }
+}
@@ -0,0 +1,237 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A secondary index from a small integer key, such as a city id or a genre ordinal, to the rows of a
+ * {@link ListingStore} with that key.
+ * <p>
+ * Each key has a posting list: a sorted {@code int[]} of row numbers, stored without boxing. The index listens
+ * to its store, so rows are added to their list when they are appended, moved between lists when
+ * {@link ListingStore#setCity(int, String)} or {@link ListingStore#setGenre(int, RealEstate.Genre)} changes
+ * their key and dropped when they are removed. Appended rows go to the end of their list in constant time;
+ * moving or removing a row shifts the tail of one list. A query visits only the rows of one key, so filtering
+ * by city or genre costs O(matches) instead of a scan over the whole store.
+ * </p>
+ * <p>
+ * Like the store, an index is not thread-safe, and a stream over a posting list must be consumed before the
+ * store changes.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class ListingIndex implements ListingListener {
+
+    /**
+     * Extracts the key of a row.
+     */
+    @FunctionalInterface
+    public interface Key {
+
+        /**
+         * Returns the key of a row.
+         *
+         * @param store the store
+         * @param row   the row
+         * @return the key; rows with a negative key are not indexed
+         */
+        int of(ListingStore store, int row);
+    }
+
+    private static final int INITIAL_POSTINGS = 16;
+
+    private final ListingStore store;
+    private final Key key;
+    private int[][] postings = new int[0][];
+    private int[] lengths = new int[0];
+    private int[] keysBeforeRepricing;
+    private int updatingRow = -1;
+    private int keyBeforeUpdate;
+
+    /**
+     * Creates an index over the current rows of a store and keeps it up to date.
+     *
+     * @param store the store to index
+     * @param key   the key of a row
+     */
+    public ListingIndex(ListingStore store, Key key) {
+        this.store = store;
+        this.key = key;
+        store.rows().forEach(row -> insert(key.of(store, row), row));
+        store.addListener(this);
+    }
+
+    /**
+     * Creates an index by {@link CityDictionary} id.
+     *
+     * @param store the store to index
+     * @return the index
+     */
+    public static ListingIndex byCity(ListingStore store) {
+        return new ListingIndex(store, ListingStore::cityId);
+    }
+
+    /**
+     * Creates an index by {@link RealEstate.Genre} ordinal.
+     *
+     * @param store the store to index
+     * @return the index
+     */
+    public static ListingIndex byGenre(ListingStore store) {
+        return new ListingIndex(store, (s, row) -> s.genre(row).ordinal());
+    }
+
+    /**
+     * Stops following the store. The index keeps its current content.
+     */
+    public void detach() {
+        store.removeListener(this);
+    }
+
+    /**
+     * Returns the number of rows with a key.
+     *
+     * @param key the key
+     * @return the number of rows
+     */
+    public int count(int key) {
+        return key >= 0 && key < lengths.length ? lengths[key] : 0;
+    }
+
+    /**
+     * Returns the rows with a key, in ascending order.
+     *
+     * @param key the key
+     * @return a new array of rows
+     */
+    public int[] rows(int key) {
+        return count(key) == 0 ? new int[0] : Arrays.copyOf(postings[key], lengths[key]);
+    }
+
+    /**
+     * Streams the rows with a key, in ascending order, without copying them.
+     *
+     * @param key the key
+     * @return the rows
+     */
+    public IntStream stream(int key) {
+        return count(key) == 0 ? IntStream.empty() : Arrays.stream(postings[key], 0, lengths[key]);
+    }
+
+    /**
+     * Passes the rows with a key to an action, in ascending order.
+     *
+     * @param key    the key
+     * @param action the action
+     */
+    public void forEach(int key, IntConsumer action) {
+        int length = count(key);
+        int[] rows = length == 0 ? null : postings[key];
+        for (int i = 0; i < length; i++) {
+            action.accept(rows[i]);
+        }
+    }
+
+    @Override
+    public void added(ListingStore store, int row) {
+        insert(key.of(store, row), row);
+    }
+
+    @Override
+    public void removing(ListingStore store, int row) {
+        delete(key.of(store, row), row);
+    }
+
+    /**
+     * Remembers the key of a row about to change; {@link #updated(ListingStore, int)} moves the row only if
+     * its key changed, so changing any other field leaves the posting lists alone.
+     */
+    @Override
+    public void updating(ListingStore store, int row) {
+        updatingRow = row;
+        keyBeforeUpdate = key.of(store, row);
+    }
+
+    @Override
+    public void updated(ListingStore store, int row) {
+        int newKey = key.of(store, row);
+        if (row != updatingRow) {
+            insert(newKey, row);
+        } else if (newKey != keyBeforeUpdate) {
+            delete(keyBeforeUpdate, row);
+            insert(newKey, row);
+        }
+        updatingRow = -1;
+    }
+
+    /**
+     * Remembers the keys of rows whose prices are about to change; {@link #repriced(ListingStore, RowBitmap)}
+     * moves only the rows whose key changed with the price, usually none.
+     */
+    @Override
+    public void repricing(ListingStore store, RowBitmap rows) {
+        keysBeforeRepricing = rows.stream().map(row -> key.of(store, row)).toArray();
+    }
+
+    @Override
+    public void repriced(ListingStore store, RowBitmap rows) {
+        int[] changed = rows.toArray();
+        int[] keys = keysBeforeRepricing;
+        keysBeforeRepricing = null;
+        for (int i = 0; i < changed.length; i++) {
+            int newKey = key.of(store, changed[i]);
+            if (newKey != keys[i]) {
+                delete(keys[i], changed[i]);
+                insert(newKey, changed[i]);
+            }
+        }
+    }
+
+    @Override
+    public void cleared(ListingStore store) {
+        Arrays.fill(lengths, 0);
+    }
+
+    private void insert(int key, int row) {
+        if (key < 0) {
+            return;
+        }
+        if (key >= postings.length) {
+            int capacity = Math.max(key + 1, postings.length * 2);
+            postings = Arrays.copyOf(postings, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int[] rows = postings[key];
+        int length = lengths[key];
+        if (rows == null) {
+            rows = postings[key] = new int[INITIAL_POSTINGS];
+        }
+        int position = length == 0 || rows[length - 1] < row ? length : Arrays.binarySearch(rows, 0, length, row);
+        if (position < 0) {
+            position = -position - 1;
+        } else if (position < length) {
+            return;
+        }
+        if (length == rows.length) {
+            rows = postings[key] = Arrays.copyOf(rows, length * 2);
+        }
+        System.arraycopy(rows, position, rows, position + 1, length - position);
+        rows[position] = row;
+        lengths[key] = length + 1;
+    }
+
+    private void delete(int key, int row) {
+        int length = count(key);
+        if (length == 0) {
+            return;
+        }
+        int[] rows = postings[key];
+        int position = Arrays.binarySearch(rows, 0, length, row);
+        if (position >= 0) {
+            System.arraycopy(rows, position + 1, rows, position, length - position - 1);
+            lengths[key] = length - 1;
+        }
+    }
+}
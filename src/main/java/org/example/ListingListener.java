@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Observes the rows of a {@link ListingStore} as they are added, changed and removed.
+ * <p>
+ * Listeners maintain derived structures such as {@link ListingIndex} in step with the store. A change is
+ * reported twice: {@link #updating(ListingStore, int)} while the row still holds its old values and
+ * {@link #updated(ListingStore, int)} once it holds the new ones, so a listener can retract what it derived
+ * from the old values and add what it derives from the new ones. Listeners are called on the thread that
+ * changes the store.
+ * </p>
+ * <p>
+ * Bulk price changes such as {@link ListingStore#makeDiscount(IntPredicate, double)} are reported once for
+ * all rows by {@link #repricing(ListingStore, RowBitmap)} and {@link #repriced(ListingStore, RowBitmap)}.
+ * By default these report every row to {@link #updating(ListingStore, int)} and
+ * {@link #updated(ListingStore, int)}; listeners that can handle a batch faster override them.
+ * </p>
+ *
+ * @version 1.0
+ * @see ListingStore#addListener(ListingListener)
+ */
+public interface ListingListener {
+
+    /**
+     * Called after a row was appended.
+     *
+     * @param store the store
+     * @param row   the new row
+     */
+    default void added(ListingStore store, int row) {
+    }
+
+    /**
+     * Called before a row is removed, while its values can still be read.
+     *
+     * @param store the store
+     * @param row   the row being removed
+     */
+    default void removing(ListingStore store, int row) {
+    }
+
+    /**
+     * Called before a field of a row changes, while the row still holds its old values.
+     *
+     * @param store the store
+     * @param row   the row being changed
+     */
+    default void updating(ListingStore store, int row) {
+    }
+
+    /**
+     * Called after a field of a row changed.
+     *
+     * @param store the store
+     * @param row   the changed row
+     */
+    default void updated(ListingStore store, int row) {
+    }
+
+    /**
+     * Called before the base prices of many rows change at once, while the rows still hold their old prices.
+     *
+     * @param store the store
+     * @param rows  the rows being changed
+     */
+    default void repricing(ListingStore store, RowBitmap rows) {
+        rows.forEach(row -> updating(store, row));
+    }
+
+    /**
+     * Called after the base prices of many rows changed at once.
+     *
+     * @param store the store
+     * @param rows  the changed rows
+     */
+    default void repriced(ListingStore store, RowBitmap rows) {
+        rows.forEach(row -> updated(store, row));
+    }
+
+    /**
+     * Called after all rows were removed at once.
+     *
+     * @param store the store
+     */
+    default void cleared(ListingStore store) {
+    }
+}
@@ -0,0 +1,214 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A {@link ListingStore} holding its listings as {@link RealEstate} and {@link Panel} objects, addressed by a
+ * stable listing id.
+ * <p>
+ * The id of a listing is its row: the index of its slot in an array that grows by doubling. Adding a listing
+ * appends it in amortized constant time, and looking it up, changing it or removing it by id indexes the
+ * array directly, so all of these cost O(1) regardless of how many listings are held. Removing a listing
+ * empties its slot and the id is never reused. Unlike a sorted set, the repository needs no ordering of the
+ * listings; sorted views are maintained separately by indexes such as {@link TotalPriceIndex}.
+ * </p>
+ * <p>
+ * The repository keeps the objects it is given rather than copies, and {@link #get(int)} returns them. A
+ * listing belongs to at most one repository: adding one that already does stores a copy. Changes made
+ * through the setters of a held listing, such as {@link RealEstate#setPrice(double)} or
+ * {@link RealEstate#makeDiscount(double)}, are reported to the listeners of the repository like changes made
+ * through the repository itself, so the indexes stay up to date either way, and hold the same write lock.
+ * Reads are not synchronized, see {@link AbstractListingStore}.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class ListingRepository extends AbstractListingStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private RealEstate[] listings = new RealEstate[INITIAL_CAPACITY];
+
+    /**
+     * Creates an empty repository.
+     */
+    public ListingRepository() {
+    }
+
+    /**
+     * Creates an empty repository whose changes hold a given lock, see {@link AbstractListingStore}.
+     *
+     * @param writeLock the lock held by every change; it must be reentrant
+     */
+    public ListingRepository(Lock writeLock) {
+        super(writeLock);
+    }
+
+    /**
+     * Returns the listing with an id. The listing is the stored object, not a copy.
+     *
+     * @param id the listing id
+     * @return the listing
+     * @throws IndexOutOfBoundsException if no listing ever had the id
+     * @throws IllegalStateException     if the listing was removed
+     */
+    @Override
+    public RealEstate get(int id) {
+        return live(id);
+    }
+
+    /**
+     * Returns the id of a listing held by this repository.
+     *
+     * @param realEstate the listing
+     * @return the id, or -1 if the listing is not held by this repository
+     */
+    public int idOf(RealEstate realEstate) {
+        return realEstate.repository == this ? realEstate.id : -1;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof RealEstate realEstate && realEstate.repository == this && removeRow(realEstate.id);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof RealEstate realEstate && realEstate.repository == this;
+    }
+
+    /**
+     * Changes the city of a listing, keeping the spelling it is given.
+     *
+     * @param id   the listing id
+     * @param city the new city
+     */
+    @Override
+    public void setCity(int id, String city) {
+        live(id).setCity(city);
+    }
+
+    @Override
+    protected void writeListing(int row, RealEstate realEstate) {
+        if (realEstate.repository != null) {
+            super.writeListing(row, realEstate);
+            return;
+        }
+        ensureCapacity(row);
+        attach(row, realEstate);
+    }
+
+    @Override
+    protected void writeRow(int row, int cityId, double price, double sqm, int rooms, RealEstate.Genre genre,
+                            int floor, boolean panel, boolean insulated) {
+        ensureCapacity(row);
+        String city = CityDictionary.name(cityId);
+        attach(row, panel
+                ? new Panel(city, price, sqm, rooms, genre, floor, insulated)
+                : new RealEstate(city, price, sqm, rooms, genre));
+    }
+
+    private void ensureCapacity(int row) {
+        if (row == listings.length) {
+            listings = Arrays.copyOf(listings, listings.length * 2);
+        }
+    }
+
+    private void attach(int row, RealEstate realEstate) {
+        realEstate.repository = this;
+        realEstate.id = row;
+        listings[row] = realEstate;
+    }
+
+    @Override
+    protected void writeCityId(int row, int cityId) {
+        listings[row].city = CityDictionary.name(cityId);
+        listings[row].cityId = cityId;
+    }
+
+    @Override
+    protected void writePrice(int row, double price) {
+        listings[row].price = price;
+    }
+
+    @Override
+    protected void writeGenre(int row, RealEstate.Genre genre) {
+        listings[row].genre = genre;
+    }
+
+    @Override
+    protected void writeRemoved(int row) {
+        listings[row].repository = null;
+        listings[row].id = -1;
+        listings[row] = null;
+    }
+
+    @Override
+    protected void clearRows() {
+        for (int row = 0; row < rowCount(); row++) {
+            if (listings[row] != null) {
+                writeRemoved(row);
+            }
+        }
+        listings = new RealEstate[INITIAL_CAPACITY];
+    }
+
+    private RealEstate live(int row) {
+        RealEstate realEstate = listings[checkRow(row)];
+        if (realEstate == null) {
+            throw new IllegalStateException("Listing " + row + " was removed");
+        }
+        return realEstate;
+    }
+
+    @Override
+    public boolean isRemoved(int row) {
+        return listings[checkRow(row)] == null;
+    }
+
+    @Override
+    public int cityId(int row) {
+        return live(row).cityId;
+    }
+
+    @Override
+    public String city(int row) {
+        return live(row).city;
+    }
+
+    @Override
+    public double price(int row) {
+        return live(row).price;
+    }
+
+    @Override
+    public double sqm(int row) {
+        return live(row).sqm;
+    }
+
+    @Override
+    public int rooms(int row) {
+        return live(row).numberOfRooms;
+    }
+
+    @Override
+    public RealEstate.Genre genre(int row) {
+        return live(row).genre;
+    }
+
+    @Override
+    public boolean isPanel(int row) {
+        return live(row) instanceof Panel;
+    }
+
+    @Override
+    public int floor(int row) {
+        return live(row) instanceof Panel panel ? panel.floor : 0;
+    }
+
+    @Override
+    public boolean isInsulated(int row) {
+        return live(row) instanceof Panel panel && panel.isInsulated;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+/**
+ * Receives listings decoded by the feed readers.
+ * <p>
+ * Readers such as {@link MappedFeedReader} call the sink once per line of the feed, passing the decoded
+ * fields as primitives so that no intermediate objects are created per field. Implementations decide
+ * whether to materialize {@link RealEstate} and {@link Panel} instances, aggregate the values directly,
+ * or discard them.
+ * </p>
+ * <p>
+ * Sinks are called from a single thread per reader; an implementation shared between readers must
+ * provide its own synchronization.
+ * </p>
+ *
+ * @version 1.0
+ * @see FeedParser
+ */
+public interface ListingSink {
+
+    /**
+     * Accepts a {@code REALESTATE} record.
+     *
+     * @param city           the city where the property is located
+     * @param price          the base price of the property
+     * @param sqm            the area of the property in square meters
+     * @param numberOfRooms  the number of rooms in the property
+     * @param genre          the genre of the property
+     */
+    void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre);
+
+    /**
+     * Accepts a {@code PANEL} record.
+     *
+     * @param city           the city where the property is located
+     * @param price          the base price of the property
+     * @param sqm            the area of the property in square meters
+     * @param numberOfRooms  the number of rooms in the property
+     * @param genre          the genre of the property
+     * @param floor          the floor of the property
+     * @param isInsulated    whether the property is insulated
+     */
+    void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+               int floor, boolean isInsulated);
+
+    /**
+     * Accepts a record of a type added through a custom {@link RecordCodec}.
+     * <p>
+     * The default implementation refuses such records, which makes the reader reject their lines as
+     * {@link RejectReason#NOT_STORED}.
+     * </p>
+     *
+     * @param listing the decoded property
+     * @throws UnsupportedOperationException unless overridden
+     */
+    default void listing(RealEstate listing) {
+        throw new UnsupportedOperationException("Unsupported property type " + listing.getClass().getSimpleName());
+    }
+
+    /**
+     * Called for every line that could not be turned into a listing.
+     *
+     * @param lineNumber the 1-based line number within the feed
+     * @param line       the trimmed content of the offending line
+     * @param reason     the category of the problem
+     * @param detail     a short description of the problem
+     */
+    void rejected(long lineNumber, String line, RejectReason reason, String detail);
+}
@@ -0,0 +1,203 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.*;
+
+/**
+ * Writes loaded properties to a compact binary snapshot and reads them back without parsing text.
+ * <p>
+ * Layout (all values big-endian):
+ * </p>
+ * <pre>
+ * header   int magic ('REAS'), short version, long recordCount
+ * genres   int count, then per genre: short length, UTF-8 name
+ * cities   int count, then per city:  int length,   UTF-8 name
+ * records  byte type tag, then
+ *            TAG_REALESTATE: int cityId, double price, double sqm, int rooms, byte genreId
+ *            TAG_PANEL:      the same fields, followed by int floor, byte insulated
+ * </pre>
+ * <p>
+ * Cities and genres are dictionary-encoded: each record refers to them by their index in the header, so
+ * every distinct city name is decoded once per snapshot. Genres are stored by name rather than by ordinal,
+ * which keeps old snapshots readable if {@link RealEstate.Genre} is reordered. Records have a fixed width per
+ * type tag, and reading walks a memory-mapped view of the file, so loading is bounded by disk bandwidth.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#saveSnapshot(String)
+ * @see RealEstateAgent#loadSnapshot(String)
+ */
+public final class ListingSnapshot {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(ListingSnapshot.class.getName());
+
+    /**
+     * The first four bytes of every snapshot: {@code 'REAS'}.
+     */
+    static final int MAGIC = 0x52454153;
+
+    /**
+     * The format version written by this class.
+     */
+    static final short VERSION = 1;
+
+    static final byte TAG_REALESTATE = 1;
+    static final byte TAG_PANEL = 2;
+
+    /**
+     * Width of a {@code TAG_PANEL} record including its tag, the widest record type.
+     */
+    private static final int MAX_RECORD_SIZE = 1 + 4 + 8 + 8 + 4 + 1 + 4 + 1;
+
+    private ListingSnapshot() {
+    }
+
+    /**
+     * Writes the given properties to a snapshot file, replacing it if it exists.
+     * <p>
+     * The snapshot is written to a temporary file next to it, {@code <name>.tmp}, which is then moved over the
+     * snapshot atomically. A write that fails midway, for instance on a full disk, leaves the previous snapshot
+     * in place instead of a truncated one.
+     * </p>
+     *
+     * @param path       the snapshot file
+     * @param realEstates the properties to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Collection<? extends RealEstate> realEstates) throws IOException {
+        logger.info(String.format("Writing snapshot of %d properties to %s", realEstates.size(), path));
+        Map<String, Integer> cityIds = new HashMap<>();
+        List<String> cities = new ArrayList<>();
+        for (RealEstate realEstate : realEstates) {
+            if (cityIds.putIfAbsent(realEstate.city, cities.size()) == null) {
+                cities.add(realEstate.city);
+            }
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(realEstates.size());
+
+            RealEstate.Genre[] genres = RealEstate.Genre.values();
+            out.writeInt(genres.length);
+            for (RealEstate.Genre genre : genres) {
+                byte[] name = genre.name().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            out.writeInt(cities.size());
+            for (String city : cities) {
+                byte[] name = city.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+
+            for (RealEstate realEstate : realEstates) {
+                boolean panel = realEstate instanceof Panel;
+                out.writeByte(panel ? TAG_PANEL : TAG_REALESTATE);
+                out.writeInt(cityIds.get(realEstate.city));
+                out.writeDouble(realEstate.price);
+                out.writeDouble(realEstate.sqm);
+                out.writeInt(realEstate.numberOfRooms);
+                out.writeByte(realEstate.genre.ordinal());
+                if (panel) {
+                    out.writeInt(((Panel) realEstate).floor);
+                    out.writeByte(((Panel) realEstate).isInsulated ? 1 : 0);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Snapshot written successfully: " + path);
+    }
+
+    /**
+     * Reads every record of a snapshot file into the sink.
+     *
+     * @param path the snapshot file
+     * @param sink the sink receiving the records; {@link ListingSink#rejected} is never called
+     * @return the number of records read
+     * @throws IOException if the file cannot be read, is not a snapshot, or has an unsupported version
+     */
+    public static long read(Path path, ListingSink sink) throws IOException {
+        logger.info("Reading snapshot: " + path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            MappedByteBuffer buffer = map(channel, windowStart, size);
+
+            if (size < 14 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a listing snapshot: " + path);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + path);
+            }
+            long recordCount = buffer.getLong();
+
+            RealEstate.Genre[] genres = new RealEstate.Genre[buffer.getInt()];
+            for (int i = 0; i < genres.length; i++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                genres[i] = RealEstate.Genre.valueOf(new String(name, StandardCharsets.UTF_8));
+            }
+            String[] cities = new String[buffer.getInt()];
+            for (int i = 0; i < cities.length; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                cities[i] = new String(name, StandardCharsets.UTF_8);
+            }
+
+            for (long record = 0; record < recordCount; record++) {
+                if (buffer.remaining() < MAX_RECORD_SIZE && windowStart + buffer.limit() < size) {
+                    windowStart += buffer.position();
+                    buffer = map(channel, windowStart, size);
+                }
+                byte tag = buffer.get();
+                String city = cities[buffer.getInt()];
+                double price = buffer.getDouble();
+                double sqm = buffer.getDouble();
+                int rooms = buffer.getInt();
+                RealEstate.Genre genre = genres[buffer.get()];
+                if (tag == TAG_PANEL) {
+                    sink.panel(city, price, sqm, rooms, genre, buffer.getInt(), buffer.get() != 0);
+                } else if (tag == TAG_REALESTATE) {
+                    sink.realEstate(city, price, sqm, rooms, genre);
+                } else {
+                    throw new IOException("Corrupt snapshot: unknown type tag " + tag + " in record " + record);
+                }
+            }
+            logger.info(String.format("Read %d records (%d cities) from snapshot %s", recordCount, cities.length, path));
+            return recordCount;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Corrupt snapshot " + path + ": " + e, e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MappedFeedReader.WINDOW_SIZE, size - start));
+    }
+}
@@ -0,0 +1,253 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics over the rows of a {@link ListingStore}: counts, sums and averages of base prices, total
+ * prices and areas, overall, per city and per genre.
+ * <p>
+ * The statistics listen to their store and are adjusted by every change: an appended row adds its values to
+ * the sums, a removed row subtracts them, and a changed row, for instance through
+ * {@link RealEstate#setPrice(double)}, {@link RealEstate#makeDiscount(double)},
+ * {@link RealEstate#setCity(String)} or {@link Panel#setFloor(int)}, subtracts its old values and adds the
+ * new ones. Each change costs O(1), and so does every read, however many rows the store holds, instead of
+ * a pass over the whole store like {@link ListingStore#analyze()}. The lowest and highest total prices are
+ * kept in sorted order by {@link TotalPriceIndex}, which answers them in O(1) as well.
+ * </p>
+ * <p>
+ * Total prices are summed exactly as {@code long}s. The statistics remember the total of every row, so a row
+ * is subtracted with the total it was added with even if the {@link PricingRules} changed since; the totals
+ * themselves are only refreshed when a row changes or the statistics are rebuilt. Base prices and areas are
+ * summed as {@code double}s and may drift by rounding errors after many changes. The statistics are not
+ * thread-safe; a {@link #snapshot()} is a copy that no longer changes.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#getStatistics()
+ */
+public final class ListingStatistics implements ListingListener {
+
+    private static final int GENRES = RealEstate.Genre.values().length;
+
+    private final ListingStore store;
+    private int[] totalPrices = new int[0];
+    private long count;
+    private double basePriceSum;
+    private long totalPriceSum;
+    private double sqmSum;
+    private long[] cityCounts = new long[0];
+    private long[] cityTotalPriceSums = new long[0];
+    private final long[] genreCounts = new long[GENRES];
+    private final long[] genreTotalPriceSums = new long[GENRES];
+
+    /**
+     * Computes the statistics of the current rows of a store and keeps them up to date.
+     *
+     * @param store the store
+     */
+    public ListingStatistics(ListingStore store) {
+        this.store = store;
+        totalPrices = store.totalPrices();
+        store.rows().forEach(row -> add(store, row, totalPrices[row], 1));
+        store.addListener(this);
+    }
+
+    /**
+     * Copies the current values of other statistics.
+     */
+    private ListingStatistics(ListingStatistics source) {
+        store = null;
+        count = source.count;
+        basePriceSum = source.basePriceSum;
+        totalPriceSum = source.totalPriceSum;
+        sqmSum = source.sqmSum;
+        cityCounts = source.cityCounts.clone();
+        cityTotalPriceSums = source.cityTotalPriceSums.clone();
+        System.arraycopy(source.genreCounts, 0, genreCounts, 0, GENRES);
+        System.arraycopy(source.genreTotalPriceSums, 0, genreTotalPriceSums, 0, GENRES);
+    }
+
+    /**
+     * Returns a copy of the current values that is not attached to any store, so it never changes and can be
+     * read on any thread.
+     *
+     * @return the snapshot
+     */
+    public ListingStatistics snapshot() {
+        return new ListingStatistics(this);
+    }
+
+    /**
+     * Stops following the store. The statistics keep their current values.
+     */
+    public void detach() {
+        if (store != null) {
+            store.removeListener(this);
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows that have not been removed
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the base prices.
+     *
+     * @return the sum of the base prices
+     */
+    public double basePriceSum() {
+        return basePriceSum;
+    }
+
+    /**
+     * Returns the average base price.
+     *
+     * @return the average base price, or 0 if there are no rows
+     */
+    public double averageBasePrice() {
+        return count == 0 ? 0 : basePriceSum / count;
+    }
+
+    /**
+     * Returns the sum of the total prices.
+     *
+     * @return the sum of the total prices
+     */
+    public long totalPriceSum() {
+        return totalPriceSum;
+    }
+
+    /**
+     * Returns the average total price.
+     *
+     * @return the average total price, or 0 if there are no rows
+     */
+    public double averageTotalPrice() {
+        return count == 0 ? 0 : (double) totalPriceSum / count;
+    }
+
+    /**
+     * Returns the average area.
+     *
+     * @return the average area in square meters, or 0 if there are no rows
+     */
+    public double averageSqm() {
+        return count == 0 ? 0 : sqmSum / count;
+    }
+
+    /**
+     * Returns the number of rows in a city, matched by {@link CityDictionary} id.
+     *
+     * @param city the city
+     * @return the number of rows, 0 for an unknown city
+     */
+    public long count(String city) {
+        int cityId = CityDictionary.find(city);
+        return cityId >= 0 && cityId < cityCounts.length ? cityCounts[cityId] : 0;
+    }
+
+    /**
+     * Returns the average total price in a city, matched by {@link CityDictionary} id.
+     *
+     * @param city the city
+     * @return the average total price, or 0 if there are no rows in the city
+     */
+    public double averageTotalPrice(String city) {
+        int cityId = CityDictionary.find(city);
+        long rows = cityId >= 0 && cityId < cityCounts.length ? cityCounts[cityId] : 0;
+        return rows == 0 ? 0 : (double) cityTotalPriceSums[cityId] / rows;
+    }
+
+    /**
+     * Returns the number of rows of a genre.
+     *
+     * @param genre the genre
+     * @return the number of rows
+     */
+    public long count(RealEstate.Genre genre) {
+        return genreCounts[genre.ordinal()];
+    }
+
+    /**
+     * Returns the average total price of a genre.
+     *
+     * @param genre the genre
+     * @return the average total price, or 0 if there are no rows of the genre
+     */
+    public double averageTotalPrice(RealEstate.Genre genre) {
+        long rows = genreCounts[genre.ordinal()];
+        return rows == 0 ? 0 : (double) genreTotalPriceSums[genre.ordinal()] / rows;
+    }
+
+    @Override
+    public void added(ListingStore store, int row) {
+        add(store, row, remember(row, store.totalPrice(row)), 1);
+    }
+
+    @Override
+    public void removing(ListingStore store, int row) {
+        add(store, row, totalPrices[row], -1);
+    }
+
+    @Override
+    public void updating(ListingStore store, int row) {
+        add(store, row, totalPrices[row], -1);
+    }
+
+    @Override
+    public void updated(ListingStore store, int row) {
+        add(store, row, remember(row, store.totalPrice(row)), 1);
+    }
+
+    @Override
+    public void cleared(ListingStore store) {
+        totalPrices = new int[0];
+        count = 0;
+        basePriceSum = 0;
+        totalPriceSum = 0;
+        sqmSum = 0;
+        Arrays.fill(cityCounts, 0);
+        Arrays.fill(cityTotalPriceSums, 0);
+        Arrays.fill(genreCounts, 0);
+        Arrays.fill(genreTotalPriceSums, 0);
+    }
+
+    /**
+     * Records the total price a row is counted with.
+     */
+    private int remember(int row, int totalPrice) {
+        if (row >= totalPrices.length) {
+            totalPrices = Arrays.copyOf(totalPrices, Math.max(row + 1, totalPrices.length * 2));
+        }
+        totalPrices[row] = totalPrice;
+        return totalPrice;
+    }
+
+    /**
+     * Adds the values of a row to the statistics, or subtracts them if {@code sign} is -1.
+     */
+    private void add(ListingStore store, int row, int totalPrice, int sign) {
+        count += sign;
+        basePriceSum += sign * store.price(row);
+        totalPriceSum += sign * (long) totalPrice;
+        sqmSum += sign * store.sqm(row);
+        int cityId = store.cityId(row);
+        if (cityId >= 0) {
+            if (cityId >= cityCounts.length) {
+                int capacity = Math.max(cityId + 1, cityCounts.length * 2);
+                cityCounts = Arrays.copyOf(cityCounts, capacity);
+                cityTotalPriceSums = Arrays.copyOf(cityTotalPriceSums, capacity);
+            }
+            cityCounts[cityId] += sign;
+            cityTotalPriceSums[cityId] += sign * (long) totalPrice;
+        }
+        int genre = store.genre(row).ordinal();
+        genreCounts[genre] += sign;
+        genreTotalPriceSums[genre] += sign * (long) totalPrice;
+    }
+}
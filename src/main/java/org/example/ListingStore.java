@@ -0,0 +1,301 @@
+package org.example;
+
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Stores listings as rows of primitive columns rather than as {@link RealEstate} objects.
+ * <p>
+ * Every listing is a row numbered from 0 in insertion order. The fields of a row are read column by column
+ * through the accessors, so scans such as {@link #analyze()} never create an object per row. Properties are
+ * only materialized on request by {@link #get(int)}; unless the store holds objects, like
+ * {@link ListingRepository}, such a property is a copy, and changing it does not change the store.
+ * </p>
+ * <p>
+ * Row numbers are stable: removing a row with {@link #removeRow(int)} leaves a gap that scans skip, and rows
+ * are never renumbered. Changes through the store, such as {@link #setCity(int, String)}, are reported to the
+ * registered {@link ListingListener}s, which keeps structures like {@link ListingIndex} up to date.
+ * </p>
+ * <p>
+ * A store is also a {@link ListingSink}, so feed readers can append decoded records to it without creating
+ * the intermediate objects either. Only {@link RealEstate} and {@link Panel} records can be stored; other
+ * types are refused with an {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @version 1.0
+ */
+public interface ListingStore extends ListingSink {
+
+    /**
+     * Returns the number of rows that have not been removed.
+     *
+     * @return the number of stored listings
+     */
+    int size();
+
+    /**
+     * Returns the number of rows ever added, including removed ones; rows are numbered below this bound.
+     *
+     * @return the row bound
+     */
+    int rowCount();
+
+    /**
+     * Returns whether a row was removed.
+     *
+     * @param row the row
+     * @return true if the row was removed
+     */
+    boolean isRemoved(int row);
+
+    /**
+     * Removes a row. Its number is not reused.
+     *
+     * @param row the row
+     * @return false if the row was already removed
+     */
+    boolean removeRow(int row);
+
+    /**
+     * Moves a row to another city.
+     *
+     * @param row  the row
+     * @param city the new city
+     * @throws IllegalStateException if the row was removed
+     */
+    void setCity(int row, String city);
+
+    /**
+     * Changes the genre of a row.
+     *
+     * @param row   the row
+     * @param genre the new genre
+     * @throws IllegalStateException if the row was removed
+     */
+    void setGenre(int row, RealEstate.Genre genre);
+
+    /**
+     * Changes the base price of a row.
+     *
+     * @param row   the row
+     * @param price the new price
+     * @throws IllegalStateException if the row was removed
+     */
+    void setPrice(int row, double price);
+
+    /**
+     * Reduces the base price of a row by a percentage, as {@link RealEstate#makeDiscount(double)} does.
+     *
+     * @param row        the row
+     * @param percentage the discount percentage
+     * @throws IllegalStateException if the row was removed
+     */
+    default void makeDiscount(int row, double percentage) {
+        double price = price(row);
+        setPrice(row, price - (price * (percentage / 100)));
+    }
+
+    /**
+     * Reduces the base prices of all rows matching a predicate by a percentage, as one change.
+     * <p>
+     * The predicate is evaluated and the new prices are computed on all rows in parallel before any price is
+     * written, so it must not depend on the order of rows or on the prices being changed. The listeners get
+     * one {@link ListingListener#repricing(ListingStore, RowBitmap)} before and one
+     * {@link ListingListener#repriced(ListingStore, RowBitmap)} after all prices were written, rather than
+     * an event pair per row.
+     * </p>
+     *
+     * @param rows       the predicate selecting the rows to discount
+     * @param percentage the discount percentage
+     * @return the discounted rows
+     */
+    RowBitmap makeDiscount(IntPredicate rows, double percentage);
+
+    /**
+     * Registers a listener for the changes of this store.
+     *
+     * @param listener the listener
+     */
+    void addListener(ListingListener listener);
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener
+     */
+    void removeListener(ListingListener listener);
+
+    /**
+     * Returns the {@link CityDictionary} id of the city of a row.
+     *
+     * @param row the row
+     * @return the city id
+     */
+    int cityId(int row);
+
+    /**
+     * Returns the base price of a row.
+     *
+     * @param row the row
+     * @return the base price
+     */
+    double price(int row);
+
+    /**
+     * Returns the area of a row in square meters.
+     *
+     * @param row the row
+     * @return the area
+     */
+    double sqm(int row);
+
+    /**
+     * Returns the number of rooms of a row.
+     *
+     * @param row the row
+     * @return the number of rooms
+     */
+    int rooms(int row);
+
+    /**
+     * Returns the genre of a row.
+     *
+     * @param row the row
+     * @return the genre
+     */
+    RealEstate.Genre genre(int row);
+
+    /**
+     * Returns whether a row is a {@link Panel}.
+     *
+     * @param row the row
+     * @return true for a panel
+     */
+    boolean isPanel(int row);
+
+    /**
+     * Returns the floor of a panel row.
+     *
+     * @param row the row
+     * @return the floor, or 0 if the row is not a panel
+     */
+    int floor(int row);
+
+    /**
+     * Returns whether a panel row is insulated.
+     *
+     * @param row the row
+     * @return true if the row is an insulated panel
+     */
+    boolean isInsulated(int row);
+
+    /**
+     * Returns the city of a row.
+     *
+     * @param row the row
+     * @return the city name
+     */
+    default String city(int row) {
+        return CityDictionary.name(cityId(row));
+    }
+
+    /**
+     * Returns the total price of a row, as {@link RealEstate#getTotalPrice()} computes it with the
+     * {@linkplain PricingEngine#standard() standard pricing engine}.
+     *
+     * @param row the row
+     * @return the total price
+     */
+    default int totalPrice(int row) {
+        return PricingEngine.standard().totalPrice(this, row);
+    }
+
+    /**
+     * Returns the total prices of all rows, as {@link #totalPrice(int)} computes them, priced in parallel.
+     *
+     * @return the total prices indexed by row, 0 for removed rows
+     */
+    default int[] totalPrices() {
+        PricingEngine engine = PricingEngine.standard();
+        return IntStream.range(0, rowCount()).parallel()
+                .map(row -> isRemoved(row) ? 0 : engine.totalPrice(this, row))
+                .toArray();
+    }
+
+    /**
+     * Creates a property holding a copy of a row.
+     *
+     * @param row the row
+     * @return a new {@link RealEstate} or {@link Panel}
+     */
+    default RealEstate get(int row) {
+        if (isPanel(row)) {
+            return new Panel(city(row), price(row), sqm(row), rooms(row), genre(row), floor(row), isInsulated(row));
+        }
+        return new RealEstate(city(row), price(row), sqm(row), rooms(row), genre(row));
+    }
+
+    /**
+     * Returns the rows that have not been removed, in row order.
+     *
+     * @return the rows
+     */
+    default IntStream rows() {
+        return IntStream.range(0, rowCount()).filter(row -> !isRemoved(row));
+    }
+
+    /**
+     * Materializes the rows matching a predicate, in row order.
+     *
+     * @param rows the predicate selecting rows
+     * @return a stream of copies of the matching rows
+     */
+    default Stream<RealEstate> select(IntPredicate rows) {
+        return rows().filter(rows).mapToObj(this::get);
+    }
+
+    /**
+     * Computes the first pass of the {@link RealEstateAgent#displayResults()} analysis in one linear pass over
+     * the columns. Only the cheapest property is materialized.
+     *
+     * @return the accumulated statistics
+     */
+    default ListingAnalysis analyze() {
+        ListingAnalysis analysis = new ListingAnalysis();
+        int cheapest = -1;
+        for (int row = 0; row < rowCount(); row++) {
+            if (isRemoved(row)) {
+                continue;
+            }
+            if (analysis.add(price(row), totalPrice(row), cityId(row), sqm(row), rooms(row))) {
+                cheapest = row;
+            }
+        }
+        if (cheapest >= 0) {
+            analysis.setCheapest(get(cheapest));
+        }
+        return analysis;
+    }
+
+    /**
+     * Computes the same statistics as {@link #analyze()} over the rows of a bitmap only, such as the result of
+     * a filter over a {@link BitmapIndex}. Rows outside the bitmap are never read.
+     *
+     * @param rows the rows to analyze; none of them may have been removed
+     * @return the accumulated statistics
+     */
+    default ListingAnalysis analyze(RowBitmap rows) {
+        ListingAnalysis analysis = new ListingAnalysis();
+        int[] cheapest = {-1};
+        rows.forEach(row -> {
+            if (analysis.add(price(row), totalPrice(row), cityId(row), sqm(row), rooms(row))) {
+                cheapest[0] = row;
+            }
+        });
+        if (cheapest[0] >= 0) {
+            analysis.setCheapest(get(cheapest[0]));
+        }
+        return analysis;
+    }
+}
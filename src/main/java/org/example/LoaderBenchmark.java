@@ -0,0 +1,282 @@
+package org.example;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the throughput of the feed loaders on a large generated file.
+ * <p>
+ * All contenders decode every field of every line but discard the results, so the comparison measures
+ * parsing alone rather than object construction or logging. The baseline reproduces the
+ * {@code BufferedReader}/{@code split}/{@code parseDouble} loop of {@link RealEstateAgent#loadFromFile(String)}.
+ * </p>
+ * <p>
+ * Usage: {@code java org.example.LoaderBenchmark [lines] [file]}. The file defaults to a temporary file
+ * holding 10,000,000 lines and is generated when it does not exist.
+ * </p>
+ * <p>
+ * The filtered contender pushes a city filter into the mapped parser and shows the cost of skipping lines.
+ * </p>
+ * <p>
+ * The compressed contenders read a gzip copy of the file: decompression alone, then decompression pipelined
+ * with parsing by {@link CompressedFeedReader}, which should take about as long as the slower of decompression
+ * and the mapped parser rather than their sum.
+ * </p>
+ * <p>
+ * A second comparison runs the mapped loader on a copy of the file in which every other line is malformed,
+ * with the bad lines going to a temporary {@link Quarantine}, to show that a corrupt feed is not much slower
+ * to load than a clean one.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class LoaderBenchmark {
+
+    private static final String[] SAMPLE_LINES = {
+            "REALESTATE#Budapest#250000#100#4#FLAT",
+            "REALESTATE#Debrecen#220000#120#5#FAMILYHOUSE",
+            "REALESTATE#Nyíregyháza#110000#60#2#FARM",
+            "REALESTATE#Nyíregyháza#250000#160#6#FAMILYHOUSE",
+            "REALESTATE#Kisvárda#150000#50#2#FLAT",
+            "REALESTATE#Nyíregyháza#150000#68#4#FLAT",
+            "PANEL#Budapest#180000#70#3#FLAT#4#no",
+            "PANEL#Debrecen#120000#35#2#FLAT#0#yes",
+            "PANEL#Tiszaújváros#120000#750#3#FLAT#10#no",
+            "PANEL#Nyíregyháza#170000#80#3#FLAT#7#no"
+    };
+
+    /**
+     * Malformed variants of the sample lines, one per {@link RejectReason} the parser can report.
+     */
+    private static final String[] CORRUPT_LINES = {
+            "HOUSE#Budapest#250000#100#4#FLAT",
+            "REALESTATE#Debrecen#220000#120",
+            "REALESTATE#Nyíregyháza#11o000#60#2#FARM",
+            "PANEL#Budapest#180000#70#3#FLATT#4#no"
+    };
+
+    private static final int ROUNDS = 3;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional line count and file path
+     * @throws IOException if the benchmark file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        long lines = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        Path file = args.length > 1 ? Path.of(args[1]) : Path.of(System.getProperty("java.io.tmpdir"),
+                "realestates-" + lines + ".txt");
+        if (Files.notExists(file)) {
+            System.out.println("Generating " + lines + " lines into " + file);
+            writeSampleFile(file, lines);
+        }
+        long bytes = Files.size(file);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("BufferedReader", round, lines, bytes, time(() -> readerBaseline(file)));
+            report("  + decoders", round, lines, bytes, time(() -> readerWithDecoders(file)));
+            report("Mapped", round, lines, bytes, time(() -> MappedFeedReader.read(file, new CountingSink())));
+            report("Parallel", round, lines, bytes,
+                    time(() -> ParallelFeedReader.read(file, CountingSink::new, new CountingSink())));
+            report("Mapped, 1 city", round, lines, bytes, time(() -> MappedFeedReader.read(file,
+                    ListingFilter.inCity("Debrecen"), new CountingSink())));
+        }
+
+        Path compressed = Path.of(file + ".gz");
+        if (Files.notExists(compressed)) {
+            System.out.println("Compressing " + file + " into " + compressed);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 1 << 16)) {
+                Files.copy(file, out);
+            }
+        }
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("Gunzip only", round, lines, bytes, time(() -> gunzip(compressed)));
+            report("Gzip pipelined", round, lines, bytes,
+                    time(() -> CompressedFeedReader.read(compressed, new CountingSink())));
+        }
+
+        Path corrupt = Path.of(file + ".corrupt");
+        if (Files.notExists(corrupt)) {
+            System.out.println("Generating " + lines + " lines, half of them malformed, into " + corrupt);
+            writeCorruptFile(corrupt, lines);
+        }
+        Path quarantineFile = Files.createTempFile("quarantine", ".txt");
+        try {
+            for (int round = 1; round <= ROUNDS; round++) {
+                report("Mapped clean", round, lines, bytes, time(() -> quarantined(file, quarantineFile)));
+                report("Mapped 50% bad", round, lines, Files.size(corrupt),
+                        time(() -> quarantined(corrupt, quarantineFile)));
+            }
+        } finally {
+            Files.deleteIfExists(quarantineFile);
+        }
+    }
+
+    static void writeSampleFile(Path file, long lines) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            byte[][] encoded = new byte[SAMPLE_LINES.length][];
+            for (int i = 0; i < SAMPLE_LINES.length; i++) {
+                encoded[i] = (SAMPLE_LINES[i] + "\n").getBytes(StandardCharsets.UTF_8);
+            }
+            for (long i = 0; i < lines; i++) {
+                out.write(encoded[(int) (i % encoded.length)]);
+            }
+        }
+    }
+
+    /**
+     * Decompresses a file without parsing it.
+     */
+    private static long gunzip(Path file) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[CompressedFeedReader.BLOCK_SIZE];
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+            for (int read; (read = in.readNBytes(buffer, 0, buffer.length)) > 0; ) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private static void writeCorruptFile(Path file, long lines) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < lines; i++) {
+                out.write(i % 2 == 0 ? SAMPLE_LINES[(int) (i / 2 % SAMPLE_LINES.length)]
+                        : CORRUPT_LINES[(int) (i / 2 % CORRUPT_LINES.length)]);
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Runs the mapped loader with rejected lines going to a fresh quarantine file.
+     */
+    private static long quarantined(Path file, Path quarantineFile) throws IOException {
+        Files.deleteIfExists(quarantineFile);
+        CountingSink sink;
+        try (Quarantine quarantine = new Quarantine(quarantineFile, file.toString())) {
+            sink = new CountingSink(quarantine);
+            MappedFeedReader.read(file, sink);
+        }
+        return sink.checksum;
+    }
+
+    /**
+     * The decoding loop of {@link RealEstateAgent#loadFromFile(String)} without logging or object creation.
+     */
+    private static long readerBaseline(Path file) throws IOException {
+        long checksum = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split("#");
+                double price = Double.parseDouble(parts[2]);
+                int sqm = Integer.parseInt(parts[3]);
+                int rooms = Integer.parseInt(parts[4]);
+                RealEstate.Genre genre = RealEstate.Genre.valueOf(parts[5].toUpperCase());
+                checksum += (long) price + sqm + rooms + genre.ordinal() + parts[1].length();
+                if (parts[0].equalsIgnoreCase("PANEL")) {
+                    checksum += Integer.parseInt(parts[6]) + (parts[7].equalsIgnoreCase("yes") ? 1 : 0);
+                }
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * The same loop as {@link #readerBaseline(Path)}, decoding the split fields with {@link FieldDecoders}.
+     */
+    private static long readerWithDecoders(Path file) throws IOException {
+        long checksum = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split("#");
+                double price = FieldDecoders.parseDouble(parts[2], 0, parts[2].length());
+                int sqm = FieldDecoders.parseInt(parts[3], 0, parts[3].length());
+                int rooms = FieldDecoders.parseInt(parts[4], 0, parts[4].length());
+                RealEstate.Genre genre = FieldDecoders.parseGenre(parts[5], 0, parts[5].length());
+                checksum += (long) price + sqm + rooms + genre.ordinal() + parts[1].length();
+                if (parts[0].equalsIgnoreCase("PANEL")) {
+                    checksum += FieldDecoders.parseInt(parts[6], 0, parts[6].length())
+                            + (FieldDecoders.parseInsulated(parts[7], 0, parts[7].length()) ? 1 : 0);
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static long time(IORunnable task) throws IOException {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, int round, long lines, long bytes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s round %d: %8.3f s  %,14.0f lines/s  %8.1f MB/s%n",
+                name, round, seconds, lines / seconds, bytes / seconds / (1 << 20));
+    }
+
+    private interface IORunnable {
+        Object run() throws IOException;
+    }
+
+    /**
+     * Consumes records without retaining them.
+     */
+    static final class CountingSink implements ListingSink {
+        private final Quarantine quarantine;
+        long records;
+        long checksum;
+
+        CountingSink() {
+            this(null);
+        }
+
+        CountingSink(Quarantine quarantine) {
+            this.quarantine = quarantine;
+        }
+
+        @Override
+        public void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre) {
+            records++;
+            checksum += (long) price + (long) sqm + numberOfRooms + genre.ordinal() + city.length();
+        }
+
+        @Override
+        public void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+                          int floor, boolean isInsulated) {
+            realEstate(city, price, sqm, numberOfRooms, genre);
+            checksum += floor + (isInsulated ? 1 : 0);
+        }
+
+        @Override
+        public void listing(RealEstate listing) {
+            records++;
+        }
+
+        @Override
+        public void rejected(long lineNumber, String line, RejectReason reason, String detail) {
+            if (quarantine == null) {
+                throw new IllegalStateException("Unexpected rejection at line " + lineNumber + ": " + detail);
+            }
+            quarantine.add(lineNumber, line, reason, detail);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.*;
@@ -20,6 +22,27 @@ public class Main {
     private static FileHandler fileHandler;
     private static ConsoleHandler consoleHandler;
 
+    /**
+     * The text feed loaded at startup.
+     */
+    private static final String DATA_FILE = "realestates.txt";
+
+    /**
+     * The binary snapshot of {@link #DATA_FILE}, reused while it is newer than the feed.
+     */
+    private static final String SNAPSHOT_FILE = "realestates.snapshot";
+
+    /**
+     * System property selecting how loaded properties are stored: {@code columnar}, {@code offheap}, or
+     * unset for property objects.
+     */
+    private static final String STORE_PROPERTY = "realestate.store";
+
+    /**
+     * The pricing rules loaded at startup if the file exists, see {@link PricingRules}.
+     */
+    private static final String PRICING_FILE = "pricing.rules";
+
     static {
         try {
             Logger rootLogger = Logger.getLogger("");
@@ -55,14 +78,42 @@ public class Main {
     /**
      * Main function to start the Real Estate Agent program.
      *
-     * @param args command-line arguments (not currently used)
+     * @param args files, directories or glob patterns of feeds to load instead of {@link #DATA_FILE}
      */
     public static void main(String[] args) {
         logger.info("Main method execution started");
 
         try {
-            logger.info("Attempting to load real estate data from file: realestates.txt");
-            RealEstateAgent.loadFromFile("realestates.txt");
+            String store = System.getProperty(STORE_PROPERTY, "");
+            switch (store) {
+                case "columnar" -> RealEstateAgent.useColumnarStore();
+                case "offheap" -> RealEstateAgent.useOffHeapStore();
+                case "" -> {
+                }
+                default -> logger.warning("Unknown store " + store + ", keeping property objects");
+            }
+
+            if (Files.exists(Path.of(PRICING_FILE))) {
+                try {
+                    RealEstateAgent.loadPricingRules(PRICING_FILE);
+                } catch (IOException e) {
+                    logger.warning("Keeping the default pricing rules: " + e.getMessage());
+                }
+            }
+
+            if (args.length > 0) {
+                for (String pattern : args) {
+                    logger.info("Attempting to load real estate data from: " + pattern);
+                    RealEstateAgent.loadFromFiles(pattern);
+                }
+            } else if (!isSnapshotCurrent() || !loadSnapshot()) {
+                logger.info("Attempting to load real estate data from file: " + DATA_FILE);
+                if (RealEstateAgent.loadFromFile(DATA_FILE) && RealEstateAgent.getStatistics().count() > 0) {
+                    RealEstateAgent.saveSnapshot(SNAPSHOT_FILE);
+                } else {
+                    logger.warning("Data file was not loaded completely, snapshot not refreshed: " + SNAPSHOT_FILE);
+                }
+            }
             logger.info("Data loading phase completed");
 
             logger.info("Attempting to display and analyze results");
@@ -86,6 +137,7 @@ public class Main {
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
             logger.info("==========================================================\n");
 
+            RealEstateAgent.closeStore();
             if (fileHandler != null) {
                 fileHandler.close();
             }
@@ -94,4 +146,41 @@ public class Main {
             }
         }
     }
+
+    /**
+     * Loads the snapshot. If it cannot be read, for instance because it is corrupt or of another version, the
+     * failure is logged and the properties loaded from it so far are discarded, so the feed can be parsed
+     * instead.
+     *
+     * @return true if the snapshot was loaded
+     */
+    private static boolean loadSnapshot() {
+        logger.info("Attempting to load real estate data from snapshot: " + SNAPSHOT_FILE);
+        try {
+            RealEstateAgent.loadSnapshot(SNAPSHOT_FILE);
+            return true;
+        } catch (IOException e) {
+            logger.warning("Cannot load snapshot, parsing the data file instead: " + e.getMessage());
+            RealEstateAgent.closeStore();
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the snapshot and the feed exist and the snapshot was written after the feed was last
+     * modified. Without a feed the snapshot cannot be verified, so it is not considered current.
+     *
+     * @return true if the snapshot can be loaded instead of parsing the feed
+     */
+    private static boolean isSnapshotCurrent() {
+        try {
+            Path snapshot = Path.of(SNAPSHOT_FILE);
+            Path data = Path.of(DATA_FILE);
+            return Files.exists(snapshot) && Files.exists(data)
+                    && Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(data)) > 0;
+        } catch (IOException e) {
+            logger.warning("Cannot compare snapshot and data file timestamps: " + e.getMessage());
+            return false;
+        }
+    }
 }
\ No newline at end of file
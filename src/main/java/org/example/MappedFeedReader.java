@@ -0,0 +1,77 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.*;
+
+/**
+ * Reads a listing feed by memory-mapping the file and parsing its bytes in place.
+ * <p>
+ * The file is mapped in windows of at most {@link #WINDOW_SIZE} bytes, so feeds larger than 2 GB are
+ * supported. Each window is handed to a single {@link FeedParser}; a line that straddles two windows is
+ * left unconsumed and the next window is mapped starting at its first byte.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#loadFromFileMapped(String)
+ */
+public final class MappedFeedReader {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(MappedFeedReader.class.getName());
+
+    /**
+     * Maximum number of bytes mapped at once.
+     */
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private MappedFeedReader() {
+    }
+
+    /**
+     * Parses every line of the given file into the sink.
+     *
+     * @param path the feed file
+     * @param sink the sink receiving decoded records and rejected lines
+     * @return the number of lines read, including empty ones
+     * @throws IOException if the file cannot be opened or mapped, or contains a line longer than a window
+     */
+    public static long read(Path path, ListingSink sink) throws IOException {
+        return read(path, ListingFilter.ALL, sink);
+    }
+
+    /**
+     * Parses the lines of the given file that the filter accepts into the sink.
+     *
+     * @param path   the feed file
+     * @param filter the filter deciding which lines are decoded
+     * @param sink   the sink receiving decoded records and rejected lines
+     * @return the number of lines read, including empty and skipped ones
+     * @throws IOException if the file cannot be opened or mapped, or contains a line longer than a window
+     */
+    public static long read(Path path, ListingFilter filter, ListingSink sink) throws IOException {
+        logger.info("Mapping feed file: " + path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            FeedParser parser = new FeedParser(sink, new CityTable(), 0, filter);
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                boolean last = position + length == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = parser.parse(window, 0, (int) length, last);
+                if (consumed == 0) {
+                    throw new IOException("Line at offset " + position + " exceeds the mapping window");
+                }
+                position += consumed;
+            }
+            logger.info(String.format("Parsed %d lines (%d bytes) from %s", parser.getLineNumber(), size, path));
+            return parser.getLineNumber();
+        }
+    }
+}
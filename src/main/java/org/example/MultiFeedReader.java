@@ -0,0 +1,170 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.*;
+import java.util.stream.Stream;
+
+/**
+ * Reads many listing feeds concurrently, such as a directory of per-agency files.
+ * <p>
+ * Every file is read on its own virtual thread. Files smaller than {@link #LARGE_FILE_SIZE} are parsed by
+ * that thread with {@link MappedFeedReader}; larger files are split into ranges by {@link ParallelFeedReader}
+ * and parsed on the common {@link java.util.concurrent.ForkJoinPool}, so a single large feed does not keep
+ * the other files waiting. The listings of each file are collected separately and returned in the order of
+ * the file list, which makes the merged result identical to reading the files one after the other.
+ * Files ending in {@code .gz} are read by {@link CompressedFeedReader} whatever their size.
+ * </p>
+ * <p>
+ * Rejected lines of every file go to a {@link Quarantine#forSource(String) per-file view} of one quarantine.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#loadFromFiles(String)
+ */
+public final class MultiFeedReader {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(MultiFeedReader.class.getName());
+
+    /**
+     * Files of at least this size are split into ranges and parsed on several threads.
+     */
+    static final long LARGE_FILE_SIZE = 32L << 20;
+
+    private MultiFeedReader() {
+    }
+
+    /**
+     * The listings read from one file, with the statistics reported for it.
+     *
+     * @param file     the feed file
+     * @param bytes    the size of the file
+     * @param listings the properties read, in file order
+     * @param rejected the number of quarantined lines
+     * @param nanos    the time spent reading the file
+     */
+    public record FeedResult(Path file, long bytes, List<RealEstate> listings, int rejected, long nanos) {
+    }
+
+    /**
+     * Resolves a file name, directory or glob pattern to the feed files it denotes.
+     * <p>
+     * A directory yields the regular files directly inside it. A pattern containing glob characters
+     * ({@code * ? [ {}) is matched against the files below its longest directory prefix without such
+     * characters, e.g. {@code feeds/2025-*.txt} or {@code feeds/**}{@code /*.txt}. Anything else is taken as a
+     * single file. The result is sorted by path.
+     * </p>
+     *
+     * @param pattern the file, directory or glob pattern
+     * @return the matching files, sorted
+     * @throws IOException if a directory cannot be listed
+     */
+    public static List<Path> resolve(String pattern) throws IOException {
+        int glob = indexOfGlob(pattern);
+        Stream<Path> files;
+        if (glob >= 0) {
+            int separator = Math.max(pattern.lastIndexOf('/', glob), pattern.lastIndexOf(File.separatorChar, glob));
+            Path base = Path.of(pattern.substring(0, separator + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            files = Files.walk(base).filter(matcher::matches);
+        } else if (Files.isDirectory(Path.of(pattern))) {
+            files = Files.list(Path.of(pattern));
+        } else {
+            return List.of(Path.of(pattern));
+        }
+        try (files) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private static int indexOfGlob(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the given files concurrently.
+     *
+     * @param files      the feed files
+     * @param quarantine the quarantine receiving rejected lines of all files
+     * @return one result per file, in the order of {@code files}
+     * @throws IOException if any of the files cannot be read
+     */
+    public static List<FeedResult> read(List<Path> files, Quarantine quarantine) throws IOException {
+        logger.info("Reading " + files.size() + " feed files concurrently");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<FeedResult>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(executor.submit(() -> readFile(file, quarantine.forSource(file.toString()))));
+            }
+            List<FeedResult> results = new ArrayList<>(files.size());
+            for (Future<FeedResult> task : tasks) {
+                results.add(join(task));
+            }
+            return results;
+        }
+    }
+
+    private static FeedResult readFile(Path file, Quarantine quarantine) throws IOException {
+        long start = System.nanoTime();
+        try (quarantine) {
+            long bytes = Files.size(file);
+            List<RealEstate> listings = new ArrayList<>();
+            CollectingSink sink = new CollectingSink(listings, quarantine);
+            if (CompressedFeedReader.isCompressed(file)) {
+                CompressedFeedReader.read(file, sink);
+            } else if (bytes < LARGE_FILE_SIZE) {
+                MappedFeedReader.read(file, sink);
+            } else {
+                for (CollectingSink chunk : ParallelFeedReader.read(file,
+                        () -> new CollectingSink(new ArrayList<>()), sink)) {
+                    listings.addAll(chunk.getTarget());
+                }
+            }
+            FeedResult result = new FeedResult(file, bytes, listings, sink.getRejectedCount(),
+                    System.nanoTime() - start);
+            logger.info(String.format("Read %s: %d properties, %d rejected, %d bytes in %.1f ms",
+                    file, listings.size(), result.rejected(), bytes, result.nanos() / 1e6));
+            return result;
+        }
+    }
+
+    private static FeedResult join(Future<FeedResult> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading feeds", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
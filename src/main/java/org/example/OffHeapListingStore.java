@@ -0,0 +1,368 @@
+package org.example;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.*;
+
+/**
+ * A {@link ListingStore} keeping every field in native memory allocated with the Foreign Function &amp; Memory
+ * API.
+ * <p>
+ * Rows are stored in chunks of {@value #CHUNK_ROWS} rows. Each chunk is one {@link MemorySegment} of about
+ * 2 MB holding a column per field, so the store grows by allocating another chunk, without copying or
+ * releasing anything. The heap only holds the array of chunks, so even hundreds
+ * of millions of listings leave the garbage collector almost nothing to trace. A row takes 30 bytes:
+ * </p>
+ * <ul>
+ *   <li>price and sqm as {@code double}</li>
+ *   <li>rooms, {@link CityDictionary} id and floor as {@code int}</li>
+ *   <li>the genre ordinal and a byte of flags (panel, insulated, removed)</li>
+ * </ul>
+ * <p>
+ * All chunks belong to one shared {@link Arena}, which is released by {@link #close()}; any access after that
+ * fails with an {@link IllegalStateException}. Rows can be read without creating objects either through the
+ * {@link ListingStore} accessors or through a {@link Cursor}, a flyweight that is moved from row to row. Like
+ * {@link ColumnarListingStore}, the store is a {@code Collection<RealEstate>}, see {@link AbstractListingStore}.
+ * Changes are locked like in every {@link AbstractListingStore}; reads are not synchronized.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class OffHeapListingStore extends AbstractListingStore implements AutoCloseable {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(OffHeapListingStore.class.getName());
+
+    /**
+     * Number of rows per chunk; a power of two.
+     */
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_ROWS);
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+    private static final long ROW_BYTES = 30;
+
+    private static final byte PANEL = 1;
+    private static final byte INSULATED = 2;
+    private static final byte REMOVED = 4;
+    private static final RealEstate.Genre[] GENRES = RealEstate.Genre.values();
+
+    private final Arena arena = Arena.ofShared();
+    private Chunk[] chunks = new Chunk[16];
+    private int chunkCount;
+
+    /**
+     * The columns of one chunk, each a slice of the chunk's segment.
+     */
+    private static final class Chunk {
+        final MemorySegment prices;
+        final MemorySegment sqms;
+        final MemorySegment rooms;
+        final MemorySegment cityIds;
+        final MemorySegment floors;
+        final MemorySegment genres;
+        final MemorySegment flags;
+
+        Chunk(MemorySegment segment) {
+            long n = CHUNK_ROWS;
+            prices = segment.asSlice(0, 8 * n);
+            sqms = segment.asSlice(8 * n, 8 * n);
+            rooms = segment.asSlice(16 * n, 4 * n);
+            cityIds = segment.asSlice(20 * n, 4 * n);
+            floors = segment.asSlice(24 * n, 4 * n);
+            genres = segment.asSlice(28 * n, n);
+            flags = segment.asSlice(29 * n, n);
+        }
+    }
+
+    /**
+     * Creates an empty store with its own arena.
+     */
+    public OffHeapListingStore() {
+    }
+
+    /**
+     * Creates an empty store with its own arena whose changes hold a given lock, see {@link AbstractListingStore}.
+     *
+     * @param writeLock the lock held by every change; it must be reentrant
+     */
+    public OffHeapListingStore(Lock writeLock) {
+        super(writeLock);
+    }
+
+    @Override
+    protected void writeRow(int row, int cityId, double price, double sqm, int rooms, RealEstate.Genre genre,
+                            int floor, boolean panel, boolean insulated) {
+        if ((row >>> CHUNK_SHIFT) == chunkCount) {
+            addChunk();
+        }
+        Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+        long i = row & CHUNK_MASK;
+        chunk.prices.setAtIndex(ValueLayout.JAVA_DOUBLE, i, price);
+        chunk.sqms.setAtIndex(ValueLayout.JAVA_DOUBLE, i, sqm);
+        chunk.rooms.setAtIndex(ValueLayout.JAVA_INT, i, rooms);
+        chunk.cityIds.setAtIndex(ValueLayout.JAVA_INT, i, cityId);
+        chunk.floors.setAtIndex(ValueLayout.JAVA_INT, i, floor);
+        chunk.genres.set(ValueLayout.JAVA_BYTE, i, (byte) genre.ordinal());
+        chunk.flags.set(ValueLayout.JAVA_BYTE, i, (byte) ((panel ? PANEL : 0) | (insulated ? INSULATED : 0)));
+    }
+
+    @Override
+    protected void writeCityId(int row, int cityId) {
+        chunks[row >>> CHUNK_SHIFT].cityIds.setAtIndex(ValueLayout.JAVA_INT, row & CHUNK_MASK, cityId);
+    }
+
+    @Override
+    protected void writePrice(int row, double price) {
+        chunks[row >>> CHUNK_SHIFT].prices.setAtIndex(ValueLayout.JAVA_DOUBLE, row & CHUNK_MASK, price);
+    }
+
+    @Override
+    protected void writeGenre(int row, RealEstate.Genre genre) {
+        chunks[row >>> CHUNK_SHIFT].genres.set(ValueLayout.JAVA_BYTE, row & CHUNK_MASK, (byte) genre.ordinal());
+    }
+
+    @Override
+    protected void writeRemoved(int row) {
+        MemorySegment flags = chunks[row >>> CHUNK_SHIFT].flags;
+        long i = row & CHUNK_MASK;
+        flags.set(ValueLayout.JAVA_BYTE, i, (byte) (flags.get(ValueLayout.JAVA_BYTE, i) | REMOVED));
+    }
+
+    /**
+     * Forgets all rows. The native memory is kept and reused for new rows.
+     */
+    @Override
+    protected void clearRows() {
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        chunks[chunkCount++] = new Chunk(arena.allocate(ROW_BYTES * CHUNK_ROWS, 8));
+        logger.fine(String.format("Allocated off-heap chunk %d, %d bytes in total", chunkCount, allocatedBytes()));
+    }
+
+    /**
+     * Releases the native memory of the store.
+     */
+    @Override
+    public void close() {
+        logger.info(String.format("Releasing off-heap store of %d properties, %d bytes", size(), allocatedBytes()));
+        arena.close();
+    }
+
+    /**
+     * Returns the number of bytes of native memory allocated by the store.
+     *
+     * @return the allocated bytes
+     */
+    public long allocatedBytes() {
+        return chunkCount * ROW_BYTES * CHUNK_ROWS;
+    }
+
+    /**
+     * Returns a new cursor positioned before the first row.
+     *
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private Chunk chunk(int row) {
+        return chunks[checkRow(row) >>> CHUNK_SHIFT];
+    }
+
+    @Override
+    public boolean isRemoved(int row) {
+        return (chunk(row).flags.get(ValueLayout.JAVA_BYTE, row & CHUNK_MASK) & REMOVED) != 0;
+    }
+
+    @Override
+    public int cityId(int row) {
+        return chunk(row).cityIds.getAtIndex(ValueLayout.JAVA_INT, row & CHUNK_MASK);
+    }
+
+    @Override
+    public double price(int row) {
+        return chunk(row).prices.getAtIndex(ValueLayout.JAVA_DOUBLE, row & CHUNK_MASK);
+    }
+
+    @Override
+    public double sqm(int row) {
+        return chunk(row).sqms.getAtIndex(ValueLayout.JAVA_DOUBLE, row & CHUNK_MASK);
+    }
+
+    @Override
+    public int rooms(int row) {
+        return chunk(row).rooms.getAtIndex(ValueLayout.JAVA_INT, row & CHUNK_MASK);
+    }
+
+    @Override
+    public RealEstate.Genre genre(int row) {
+        return GENRES[chunk(row).genres.get(ValueLayout.JAVA_BYTE, row & CHUNK_MASK)];
+    }
+
+    @Override
+    public boolean isPanel(int row) {
+        return (chunk(row).flags.get(ValueLayout.JAVA_BYTE, row & CHUNK_MASK) & PANEL) != 0;
+    }
+
+    @Override
+    public int floor(int row) {
+        return chunk(row).floors.getAtIndex(ValueLayout.JAVA_INT, row & CHUNK_MASK);
+    }
+
+    @Override
+    public boolean isInsulated(int row) {
+        return (chunk(row).flags.get(ValueLayout.JAVA_BYTE, row & CHUNK_MASK) & INSULATED) != 0;
+    }
+
+    /**
+     * A flyweight view of one row, read straight from native memory.
+     * <p>
+     * A cursor is moved with {@link #next()} or {@link #moveTo(int)}, so a scan over any number of rows uses a
+     * single object:
+     * </p>
+     * <pre>{@code
+     * OffHeapListingStore.Cursor cursor = store.cursor();
+     * while (cursor.next()) {
+     *     sum += cursor.price();
+     * }
+     * }</pre>
+     */
+    public final class Cursor {
+        private Chunk chunk;
+        private long index;
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next row that has not been removed.
+         *
+         * @return false if there is no such row
+         */
+        public boolean next() {
+            int next = row + 1;
+            while (next < rowCount() && isRemoved(next)) {
+                next++;
+            }
+            if (next >= rowCount()) {
+                return false;
+            }
+            moveTo(next);
+            return true;
+        }
+
+        /**
+         * Moves to a row.
+         *
+         * @param row the row
+         * @return this cursor
+         */
+        public Cursor moveTo(int row) {
+            this.chunk = chunk(row);
+            this.index = row & CHUNK_MASK;
+            this.row = row;
+            return this;
+        }
+
+        /**
+         * Returns the current row.
+         *
+         * @return the row, or -1 before the first call to {@link #next()}
+         */
+        public int row() {
+            return row;
+        }
+
+        /**
+         * Returns the city id of the current row.
+         *
+         * @return the city id
+         */
+        public int cityId() {
+            return chunk.cityIds.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        /**
+         * Returns the city of the current row.
+         *
+         * @return the city name
+         */
+        public String city() {
+            return CityDictionary.name(cityId());
+        }
+
+        /**
+         * Returns the base price of the current row.
+         *
+         * @return the base price
+         */
+        public double price() {
+            return chunk.prices.getAtIndex(ValueLayout.JAVA_DOUBLE, index);
+        }
+
+        /**
+         * Returns the area of the current row.
+         *
+         * @return the area in square meters
+         */
+        public double sqm() {
+            return chunk.sqms.getAtIndex(ValueLayout.JAVA_DOUBLE, index);
+        }
+
+        /**
+         * Returns the number of rooms of the current row.
+         *
+         * @return the number of rooms
+         */
+        public int rooms() {
+            return chunk.rooms.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        /**
+         * Returns the genre of the current row.
+         *
+         * @return the genre
+         */
+        public RealEstate.Genre genre() {
+            return GENRES[chunk.genres.get(ValueLayout.JAVA_BYTE, index)];
+        }
+
+        /**
+         * Returns whether the current row is a panel.
+         *
+         * @return true for a panel
+         */
+        public boolean isPanel() {
+            return (chunk.flags.get(ValueLayout.JAVA_BYTE, index) & PANEL) != 0;
+        }
+
+        /**
+         * Returns the floor of the current row.
+         *
+         * @return the floor, or 0 if the row is not a panel
+         */
+        public int floor() {
+            return chunk.floors.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        /**
+         * Returns whether the current row is an insulated panel.
+         *
+         * @return true if insulated
+         */
+        public boolean isInsulated() {
+            return (chunk.flags.get(ValueLayout.JAVA_BYTE, index) & INSULATED) != 0;
+        }
+    }
+}
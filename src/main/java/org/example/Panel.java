@@ -81,7 +81,9 @@ public class Panel extends RealEstate implements PanelInterface {
     public void setFloor(int floor) {
         logger.info(String.format("Setting floor from %d to %d", this.floor, floor));
         try {
+            changing();
             this.floor = floor;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting floor: " + e.getMessage());
             throw e;
@@ -106,60 +108,15 @@ public class Panel extends RealEstate implements PanelInterface {
     public void setInsulated(boolean insulated) {
         logger.info(String.format("Setting insulation status from %b to %b", this.isInsulated, insulated));
         try {
+            changing();
             isInsulated = insulated;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting insulation status: " + e.getMessage());
             throw e;
         }
     }
 
-    /**
-     * Calculates the total price of the property, including adjustments for floor level and insulation.
-     * Overrides {@link RealEstate#getTotalPrice()}.
-     *
-     * @return the final total price
-     */
-    @Override
-    public int getTotalPrice() {
-        logger.info(String.format("Calculating Panel total price: floor=%d, isInsulated=%b", floor, isInsulated));
-
-        try {
-            int price = super.getTotalPrice();
-            logger.info(String.format("Base total price from RealEstate: %d", price));
-
-            int originalPrice = price;
-
-            if (floor >= 0 && floor <= 2) {
-                price *= 1.05;
-                logger.info(String.format("Applied low floor bonus (1.05) for floor %d: price changed from %d to %d",
-                        floor, originalPrice, price));
-                originalPrice = price;
-            } else if (floor == 10) {
-                price *= 0.95;
-                logger.info(String.format("Applied top floor penalty (0.95) for floor 10: price changed from %d to %d",
-                        originalPrice, price));
-                originalPrice = price;
-            } else {
-                logger.info(String.format("No floor adjustment for floor %d", floor));
-            }
-
-            if (isInsulated) {
-                price *= 1.05;
-                logger.info(String.format("Applied insulation bonus (1.05): price changed from %d to %d",
-                        originalPrice, price));
-            } else {
-                logger.info("No insulation bonus applied");
-            }
-
-            logger.info(String.format("Final Panel total price: %d", price));
-            return price;
-
-        } catch (Exception e) {
-            logger.severe("Error calculating Panel total price: " + e.getMessage());
-            throw e;
-        }
-    }
-
     /**
      * Returns a one-line description of the property.
      * Overrides {@link PanelInterface}.
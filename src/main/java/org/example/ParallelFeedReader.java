@@ -0,0 +1,213 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.logging.*;
+
+/**
+ * Reads a listing feed on several threads by splitting the file into newline-aligned byte ranges.
+ * <p>
+ * Each range is memory-mapped and parsed independently on a {@link ForkJoinPool} worker with its own
+ * {@link FeedParser} and its own sink, obtained from a factory. Because a worker does not know how many
+ * lines precede its range, rejected lines are buffered per range and only reported once every range has
+ * been parsed, with their line numbers shifted by the number of lines in the preceding ranges. Rejections
+ * therefore carry the same global line numbers a sequential read would report, in file order.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#loadFromFileParallel(String)
+ */
+public final class ParallelFeedReader {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(ParallelFeedReader.class.getName());
+
+    /**
+     * Files smaller than this are parsed as a single range.
+     */
+    static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    /**
+     * Number of ranges created per worker thread, to even out the load between threads.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelFeedReader() {
+    }
+
+    /**
+     * Parses the given file on the common {@link ForkJoinPool}.
+     *
+     * @param path        the feed file
+     * @param sinkFactory creates the sink receiving the records of one range
+     * @param rejections  receives rejected lines with their global line numbers, after all ranges are parsed
+     * @param <S>         the type of the per-range sinks
+     * @return the per-range sinks, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public static <S extends ListingSink> List<S> read(Path path, Supplier<S> sinkFactory, ListingSink rejections)
+            throws IOException {
+        return read(path, sinkFactory, rejections, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses the given file on the given pool.
+     *
+     * @param path        the feed file
+     * @param sinkFactory creates the sink receiving the records of one range
+     * @param rejections  receives rejected lines with their global line numbers, after all ranges are parsed
+     * @param pool        the pool running the range parsers
+     * @param <S>         the type of the per-range sinks
+     * @return the per-range sinks, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public static <S extends ListingSink> List<S> read(Path path, Supplier<S> sinkFactory, ListingSink rejections,
+                                                        ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, pool.getParallelism());
+            logger.info(String.format("Parsing %s in %d ranges on %d threads", path, bounds.length - 1,
+                    pool.getParallelism()));
+
+            Map<String, String> cities = new ConcurrentHashMap<>();
+            List<ForkJoinTask<Chunk<S>>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(pool.submit(() -> parseRange(channel, start, end, sinkFactory.get(), cities)));
+            }
+
+            List<S> sinks = new ArrayList<>(tasks.size());
+            long linesBefore = 0;
+            for (ForkJoinTask<Chunk<S>> task : tasks) {
+                Chunk<S> chunk = join(task);
+                for (Rejection rejection : chunk.rejections) {
+                    rejections.rejected(linesBefore + rejection.lineNumber, rejection.line, rejection.reason,
+                            rejection.detail);
+                }
+                linesBefore += chunk.lines;
+                sinks.add(chunk.sink);
+            }
+            logger.info(String.format("Parsed %d lines from %s", linesBefore, path));
+            return sinks;
+        }
+    }
+
+    /**
+     * Computes range boundaries so that every range starts at the beginning of a line.
+     *
+     * @return the sorted boundaries, starting with 0 and ending with the file size
+     */
+    static long[] split(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunks = Math.max((long) parallelism * CHUNKS_PER_THREAD,
+                (size + MappedFeedReader.WINDOW_SIZE - 1) / MappedFeedReader.WINDOW_SIZE);
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, (size + chunks - 1) / chunks);
+        chunkSize = Math.min(chunkSize, MappedFeedReader.WINDOW_SIZE / 2);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long previous = 0;
+        while (previous < size) {
+            long next = previous + chunkSize >= size ? size : nextLineStart(channel, previous + chunkSize, size);
+            bounds.add(next);
+            previous = next;
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the offset of the first line starting at or after {@code offset}.
+     */
+    private static long nextLineStart(FileChannel channel, long offset, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = offset - 1;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static <S extends ListingSink> Chunk<S> parseRange(FileChannel channel, long start, long end, S sink,
+                                                               Map<String, String> cities) {
+        Chunk<S> chunk = new Chunk<>(sink);
+        try {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            FeedParser parser = new FeedParser(chunk, new CityTable(cities));
+            parser.parse(window, 0, (int) (end - start), true);
+            chunk.lines = parser.getLineNumber();
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The result of parsing one range: records go straight to the range's sink, rejections are kept with
+     * their range-local line numbers until the global offset is known.
+     */
+    private static final class Chunk<S extends ListingSink> implements ListingSink {
+        final S sink;
+        final List<Rejection> rejections = new ArrayList<>();
+        long lines;
+
+        Chunk(S sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre) {
+            sink.realEstate(city, price, sqm, numberOfRooms, genre);
+        }
+
+        @Override
+        public void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+                          int floor, boolean isInsulated) {
+            sink.panel(city, price, sqm, numberOfRooms, genre, floor, isInsulated);
+        }
+
+        @Override
+        public void listing(RealEstate listing) {
+            sink.listing(listing);
+        }
+
+        @Override
+        public void rejected(long lineNumber, String line, RejectReason reason, String detail) {
+            rejections.add(new Rejection(lineNumber, line, reason, detail));
+        }
+    }
+
+    private record Rejection(long lineNumber, String line, RejectReason reason, String detail) {
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.logging.*;
+
+/**
+ * Compares the ways of pricing a large number of listings held in primitive columns.
+ * <p>
+ * The contenders are the {@linkplain PricingEngine#standard() standard engine} called once per row, the
+ * scalar loop of {@link BatchPricer} and, when the JVM runs with {@code --add-modules jdk.incubator.vector},
+ * its Vector API kernel. All of them run on one thread over the same random rows, and every result is
+ * compared with the engine's, so the benchmark fails if the kernels disagree on a single row.
+ * </p>
+ * <p>
+ * Usage: {@code java --add-modules jdk.incubator.vector org.example.PricingBenchmark [rows]}. The rows
+ * default to 10,000,000. About a tenth of the base prices have a fractional part and some floors are outside
+ * the rules, so rounding and the fallback multipliers are exercised as well.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class PricingBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional row count
+     */
+    public static void main(String[] args) {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        PricingRules rules = PricingRules.defaults();
+        PricingEngine engine = PricingEngine.of(rules);
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] cities = {CityDictionary.BUDAPEST, CityDictionary.DEBRECEN, CityDictionary.NYIREGYHAZA,
+                CityDictionary.id("Kisvárda"), CityDictionary.id("Tiszaújváros"), CityDictionary.UNKNOWN};
+        double[] prices = new double[rows];
+        int[] cityIds = new int[rows];
+        int[] floors = new int[rows];
+        boolean[] insulated = new boolean[rows];
+        boolean[] panels = new boolean[rows];
+        for (int i = 0; i < rows; i++) {
+            prices[i] = random.nextInt(10) == 0 ? random.nextDouble(10_000, 1_000_000)
+                    : random.nextInt(10_000, 1_000_000);
+            cityIds[i] = cities[random.nextInt(cities.length)];
+            panels[i] = random.nextBoolean();
+            floors[i] = panels[i] ? random.nextInt(13) : 0;
+            insulated[i] = panels[i] && random.nextBoolean();
+        }
+        System.out.println("Pricing " + rows + " rows, Vector API "
+                + (BatchPricer.isVectorized() ? "available" : "not available"));
+
+        int[] expected = new int[rows];
+        int[] totals = new int[rows];
+        for (int round = 1; round <= ROUNDS; round++) {
+            long engineNanos = time(() -> {
+                for (int i = 0; i < rows; i++) {
+                    expected[i] = engine.totalPrice(prices[i], cityIds[i], panels[i], floors[i],
+                            panels[i] && insulated[i]);
+                }
+            });
+            report("Engine per row", round, rows, engineNanos, engineNanos);
+            Arrays.fill(totals, 0);
+            report("Batch scalar", round, rows, time(() -> BatchPricer.scalarTotalPrices(rules, prices, cityIds,
+                    floors, insulated, panels, totals, 0, rows)), engineNanos);
+            verify(expected, totals);
+            if (BatchPricer.isVectorized()) {
+                Arrays.fill(totals, 0);
+                report("Batch vector", round, rows, time(() -> BatchPricer.totalPrices(rules, prices, cityIds,
+                        floors, insulated, panels, totals, 0, rows)), engineNanos);
+                verify(expected, totals);
+            }
+        }
+    }
+
+    private static long time(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, int round, int rows, long nanos, long baselineNanos) {
+        System.out.printf("%-16s round %d: %8.3f s  %,14.0f rows/s  %5.2fx%n",
+                name, round, nanos / 1e9, rows / (nanos / 1e9), (double) baselineNanos / nanos);
+    }
+
+    private static void verify(int[] expected, int[] totals) {
+        int mismatch = Arrays.mismatch(expected, totals);
+        if (mismatch >= 0) {
+            throw new IllegalStateException("Row " + mismatch + " priced " + totals[mismatch] + " instead of "
+                    + expected[mismatch]);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.*;
+
+/**
+ * Computes total prices from base prices through a pipeline of pricing stages, without changing any listing.
+ * <p>
+ * A {@link Stage} is a pure function from the price computed so far and the attributes of a listing that
+ * matter for pricing to a new price. The {@linkplain #standard() standard engine} applies the city multiplier
+ * and rounds to whole forints, then adjusts panels by floor and by insulation, truncating after each step,
+ * which is the pricing of {@link RealEstate#getTotalPrice()} and {@link Panel}. Engines are immutable:
+ * {@link #then(String, Stage)} returns a new engine with one more stage, so pipelines can be composed and
+ * shared freely between threads.
+ * </p>
+ * <p>
+ * The rates of the standard engine come from {@link PricingRules}. {@link #install(PricingRules)} compiles
+ * new rules into a new standard engine and swaps it in atomically, so rates can change at runtime without a
+ * redeployment. A pricing that fetched {@link #standard()} once uses one set of rules throughout, even if the
+ * rules are swapped meanwhile.
+ * </p>
+ * <p>
+ * Since pricing reads nothing but its arguments, the same listing always gets the same total, totals can be
+ * cached until the listing changes, and any number of listings can be priced concurrently.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class PricingEngine {
+
+    /**
+     * One step of a pricing pipeline.
+     */
+    @FunctionalInterface
+    public interface Stage {
+
+        /**
+         * Returns the price after this stage.
+         *
+         * @param price     the price after the previous stages, or the base price for the first stage
+         * @param cityId    the {@link CityDictionary} id of the city
+         * @param panel     whether the listing is a {@link Panel}
+         * @param floor     the floor of a panel, 0 otherwise
+         * @param insulated whether the listing is an insulated panel
+         * @return the new price
+         */
+        double apply(double price, int cityId, boolean panel, int floor, boolean insulated);
+    }
+
+    /**
+     * Observes the stages of a pricing, for instance to log them.
+     */
+    @FunctionalInterface
+    public interface Trace {
+
+        /**
+         * Called after a stage was applied.
+         *
+         * @param stage  the name of the stage
+         * @param before the price before the stage
+         * @param after  the price after the stage
+         */
+        void applied(String stage, double before, double after);
+    }
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(PricingEngine.class.getName());
+
+    private static final AtomicReference<PricingEngine> STANDARD =
+            new AtomicReference<>(of(PricingRules.defaults()));
+
+    private final String[] names;
+    private final Stage[] stages;
+    private final PricingRules rules;
+
+    /**
+     * Creates an engine without stages, which prices every listing at its base price.
+     */
+    public PricingEngine() {
+        this(new String[0], new Stage[0], null);
+    }
+
+    private PricingEngine(String[] names, Stage[] stages, PricingRules rules) {
+        this.names = names;
+        this.stages = stages;
+        this.rules = rules;
+    }
+
+    /**
+     * Returns the engine computing the prices of {@link RealEstate#getTotalPrice()}, built from the installed
+     * rules.
+     *
+     * @return the standard engine
+     */
+    public static PricingEngine standard() {
+        return STANDARD.get();
+    }
+
+    /**
+     * Replaces the rules of the standard engine. Pricings already running finish with the previous rules.
+     * <p>
+     * Totals computed before the swap, such as those held by a {@link TotalPriceIndex} or a {@link KdTree},
+     * keep their old values until they are rebuilt.
+     * </p>
+     *
+     * @param rules the new rules
+     */
+    public static void install(PricingRules rules) {
+        STANDARD.set(of(rules));
+        logger.info("Installed new pricing rules");
+    }
+
+    /**
+     * Builds the standard pipeline for a set of rules.
+     *
+     * @param rules the rules
+     * @return an engine applying {@link #cityMultiplier(PricingRules)}, {@link #floorAdjustment(PricingRules)}
+     *         and {@link #insulationBonus(PricingRules)}
+     */
+    public static PricingEngine of(PricingRules rules) {
+        PricingEngine engine = new PricingEngine()
+                .then("city multiplier", cityMultiplier(rules))
+                .then("floor adjustment", floorAdjustment(rules))
+                .then("insulation bonus", insulationBonus(rules));
+        return new PricingEngine(engine.names, engine.stages, rules);
+    }
+
+    /**
+     * Returns the rules this engine was built from by {@link #of(PricingRules)}, for instance to price many
+     * rows at once with {@link BatchPricer}.
+     *
+     * @return the rules, or {@code null} for an engine with other stages
+     */
+    public PricingRules rules() {
+        return rules;
+    }
+
+    /**
+     * Returns a stage multiplying the price by the multiplier of the city and rounding it to whole forints.
+     *
+     * @param rules the rules
+     * @return the stage
+     */
+    public static Stage cityMultiplier(PricingRules rules) {
+        return (price, cityId, panel, floor, insulated) -> (int) Math.round(price * rules.cityMultiplier(cityId));
+    }
+
+    /**
+     * Returns a stage multiplying the price of a panel by the multiplier of its floor, truncating to whole
+     * forints.
+     *
+     * @param rules the rules
+     * @return the stage
+     */
+    public static Stage floorAdjustment(PricingRules rules) {
+        return (price, cityId, panel, floor, insulated) ->
+                panel ? (int) (price * rules.floorMultiplier(floor)) : price;
+    }
+
+    /**
+     * Returns a stage multiplying the price of an insulated panel by the insulation multiplier, truncating to
+     * whole forints.
+     *
+     * @param rules the rules
+     * @return the stage
+     */
+    public static Stage insulationBonus(PricingRules rules) {
+        return (price, cityId, panel, floor, insulated) ->
+                insulated ? (int) (price * rules.insulationMultiplier()) : price;
+    }
+
+    /**
+     * Returns an engine applying the stages of this engine followed by another stage.
+     *
+     * @param name  the name of the stage, reported to a {@link Trace}
+     * @param stage the stage
+     * @return a new engine
+     */
+    public PricingEngine then(String name, Stage stage) {
+        String[] newNames = Arrays.copyOf(names, names.length + 1);
+        Stage[] newStages = Arrays.copyOf(stages, stages.length + 1);
+        newNames[names.length] = name;
+        newStages[stages.length] = stage;
+        return new PricingEngine(newNames, newStages, null);
+    }
+
+    /**
+     * Computes a total price from the attributes of a listing.
+     *
+     * @param price     the base price
+     * @param cityId    the {@link CityDictionary} id of the city
+     * @param panel     whether the listing is a {@link Panel}
+     * @param floor     the floor of a panel, 0 otherwise
+     * @param insulated whether the listing is an insulated panel
+     * @return the total price, the result of the last stage converted to {@code int}
+     */
+    public int totalPrice(double price, int cityId, boolean panel, int floor, boolean insulated) {
+        for (Stage stage : stages) {
+            price = stage.apply(price, cityId, panel, floor, insulated);
+        }
+        return (int) price;
+    }
+
+    /**
+     * Computes the total price of a property.
+     *
+     * @param realEstate the property
+     * @return the total price
+     */
+    public int totalPrice(RealEstate realEstate) {
+        return totalPrice(realEstate, null);
+    }
+
+    /**
+     * Computes the total price of a property, reporting every stage to a trace.
+     *
+     * @param realEstate the property
+     * @param trace      the trace, or {@code null}
+     * @return the total price
+     */
+    public int totalPrice(RealEstate realEstate, Trace trace) {
+        boolean panel = realEstate instanceof Panel;
+        int floor = panel ? ((Panel) realEstate).floor : 0;
+        boolean insulated = panel && ((Panel) realEstate).isInsulated;
+        double price = realEstate.price;
+        for (int i = 0; i < stages.length; i++) {
+            double next = stages[i].apply(price, realEstate.cityId, panel, floor, insulated);
+            if (trace != null) {
+                trace.applied(names[i], price, next);
+            }
+            price = next;
+        }
+        return (int) price;
+    }
+
+    /**
+     * Computes the total price of a row of a store.
+     *
+     * @param store the store
+     * @param row   the row
+     * @return the total price
+     */
+    public int totalPrice(ListingStore store, int row) {
+        boolean panel = store.isPanel(row);
+        return totalPrice(store.price(row), store.cityId(row), panel, panel ? store.floor(row) : 0,
+                panel && store.isInsulated(row));
+    }
+}
@@ -0,0 +1,198 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.*;
+
+/**
+ * The rates used by the {@link PricingEngine}, compiled into flat lookup tables.
+ * <p>
+ * City multipliers are kept in a {@code double[]} indexed by {@link CityDictionary} id and floor multipliers
+ * in a {@code double[]} indexed by floor, so pricing a listing takes a few array loads and no string
+ * comparison. Cities and floors without a rule have the multiplier 1. Rules are immutable; they are changed
+ * at runtime by loading a new set and installing it with {@link PricingEngine#install(PricingRules)}.
+ * </p>
+ * <p>
+ * A rules file is UTF-8 text with one rule per line; blank lines and lines starting with {@code #} are
+ * ignored. City names are matched like everywhere else, ignoring case and accents. The defaults are:
+ * </p>
+ * <pre>
+ * city.Budapest = 1.30
+ * city.Debrecen = 1.20
+ * city.Nyíregyháza = 1.15
+ * floor.0-2 = 1.05
+ * floor.10 = 0.95
+ * insulated = 1.05
+ * </pre>
+ *
+ * @version 1.0
+ */
+public final class PricingRules {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(PricingRules.class.getName());
+
+    /**
+     * The highest floor a rule may name.
+     */
+    public static final int MAX_FLOOR = 1000;
+
+    private static final PricingRules DEFAULTS = new PricingRules(
+            cityTable(new int[]{CityDictionary.BUDAPEST, CityDictionary.DEBRECEN, CityDictionary.NYIREGYHAZA},
+                    new double[]{1.30, 1.20, 1.15}),
+            new double[]{1.05, 1.05, 1.05, 1, 1, 1, 1, 1, 1, 1, 0.95},
+            1.05);
+
+    private final double[] cityMultipliers;
+    private final double[] floorMultipliers;
+    private final double insulationMultiplier;
+
+    private PricingRules(double[] cityMultipliers, double[] floorMultipliers, double insulationMultiplier) {
+        this.cityMultipliers = cityMultipliers;
+        this.floorMultipliers = floorMultipliers;
+        this.insulationMultiplier = insulationMultiplier;
+    }
+
+    /**
+     * Returns the built-in rules.
+     *
+     * @return the default rules
+     */
+    public static PricingRules defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Loads rules from a file.
+     *
+     * @param path the rules file
+     * @return the rules
+     * @throws IOException if the file cannot be read or contains an invalid rule
+     */
+    public static PricingRules load(Path path) throws IOException {
+        double[] cities = new double[0];
+        double[] floors = new double[0];
+        double insulation = 1;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    int separator = line.lastIndexOf('=');
+                    if (separator < 0) {
+                        throw new IllegalArgumentException("expected key = multiplier");
+                    }
+                    String key = line.substring(0, separator).strip();
+                    double multiplier = Double.parseDouble(line.substring(separator + 1).strip());
+                    if (!(multiplier >= 0) || Double.isInfinite(multiplier)) {
+                        throw new IllegalArgumentException("multiplier must be a non-negative number");
+                    }
+                    if (key.startsWith("city.")) {
+                        int cityId = CityDictionary.id(key.substring(5));
+                        if (cityId == CityDictionary.UNKNOWN) {
+                            throw new IllegalArgumentException("missing city name");
+                        }
+                        cities = set(cities, cityId, cityId, multiplier);
+                    } else if (key.startsWith("floor.")) {
+                        String range = key.substring(6);
+                        int dash = range.indexOf('-', 1);
+                        int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+                        int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1));
+                        if (first < 0 || last < first || last > MAX_FLOOR) {
+                            throw new IllegalArgumentException("floors must be a range within 0-" + MAX_FLOOR);
+                        }
+                        floors = set(floors, first, last, multiplier);
+                    } else if (key.equals("insulated")) {
+                        insulation = multiplier;
+                    } else {
+                        throw new IllegalArgumentException("unknown rule " + key);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid pricing rule at line " + lineNumber + " of " + path + ": "
+                            + e.getMessage(), e);
+                }
+            }
+        }
+        PricingRules rules = new PricingRules(cities, floors, insulation);
+        logger.info(String.format("Loaded pricing rules from %s: %d cities, %d floors", path,
+                cities.length, floors.length));
+        return rules;
+    }
+
+    private static double[] cityTable(int[] cityIds, double[] multipliers) {
+        double[] table = new double[0];
+        for (int i = 0; i < cityIds.length; i++) {
+            table = set(table, cityIds[i], cityIds[i], multipliers[i]);
+        }
+        return table;
+    }
+
+    /**
+     * Sets a range of a table to a multiplier, growing the table and filling new entries with 1.
+     */
+    private static double[] set(double[] table, int first, int last, double multiplier) {
+        if (last >= table.length) {
+            int length = table.length;
+            table = Arrays.copyOf(table, last + 1);
+            Arrays.fill(table, length, table.length, 1);
+        }
+        Arrays.fill(table, first, last + 1, multiplier);
+        return table;
+    }
+
+    /**
+     * Returns the multiplier of a city.
+     *
+     * @param cityId the {@link CityDictionary} id of the city
+     * @return the multiplier, 1 for a city without a rule
+     */
+    public double cityMultiplier(int cityId) {
+        return cityId >= 0 && cityId < cityMultipliers.length ? cityMultipliers[cityId] : 1;
+    }
+
+    /**
+     * Returns the multiplier of a panel floor.
+     *
+     * @param floor the floor
+     * @return the multiplier, 1 for a floor without a rule
+     */
+    public double floorMultiplier(int floor) {
+        return floor >= 0 && floor < floorMultipliers.length ? floorMultipliers[floor] : 1;
+    }
+
+    /**
+     * Returns the table of city multipliers indexed by {@link CityDictionary} id, which {@link BatchPricer}
+     * gathers from. Ids beyond its end have the multiplier 1. The table must not be modified.
+     */
+    double[] cityTable() {
+        return cityMultipliers;
+    }
+
+    /**
+     * Returns the table of floor multipliers indexed by floor. Floors beyond its end have the multiplier 1.
+     * The table must not be modified.
+     */
+    double[] floorTable() {
+        return floorMultipliers;
+    }
+
+    /**
+     * Returns the multiplier of insulated panels.
+     *
+     * @return the multiplier
+     */
+    public double insulationMultiplier() {
+        return insulationMultiplier;
+    }
+}
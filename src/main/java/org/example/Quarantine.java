@@ -0,0 +1,184 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.*;
+
+/**
+ * Collects malformed feed lines in a quarantine file instead of logging each of them.
+ * <p>
+ * Every rejected line is appended to the quarantine file as one tab-separated record:
+ * </p>
+ * <pre>
+ * source:lineNumber	REASON	detail	original line
+ * </pre>
+ * <p>
+ * and counted per {@link RejectReason}. The file is written through a large buffer and only created once the
+ * first line is rejected, so a clean feed leaves no trace and a corrupt one costs a buffered append per bad
+ * line rather than a formatted log record. {@link #close()} logs a single summary with the per-reason counts.
+ * </p>
+ * <p>
+ * Methods are synchronized, so a quarantine can be shared by concurrent readers. Readers of different feeds
+ * use {@link #forSource(String)} to write to the same file under their own name and with their own counts.
+ * </p>
+ *
+ * @version 1.0
+ * @see RealEstateAgent#setQuarantineFile(String)
+ */
+public class Quarantine implements Closeable {
+
+    /**
+     * Logger instance for this class. Uses centralized logging configured in Main class.
+     */
+    private static final Logger logger = Logger.getLogger(Quarantine.class.getName());
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final Output output;
+    private final boolean ownsOutput;
+    private final String source;
+    private final long[] counts = new long[REASONS.length];
+
+    /**
+     * Creates a quarantine appending to the given file.
+     *
+     * @param file   the quarantine file; created on the first rejected line
+     * @param source the name of the feed, written in front of every line number
+     */
+    public Quarantine(Path file, String source) {
+        this(new Output(file), true, source);
+    }
+
+    private Quarantine(Output output, boolean ownsOutput, String source) {
+        this.output = output;
+        this.ownsOutput = ownsOutput;
+        this.source = source;
+    }
+
+    /**
+     * Returns a quarantine writing to the same file for another feed.
+     * <p>
+     * The returned quarantine counts its own lines and logs its own summary when closed, while the file is
+     * only closed with this quarantine.
+     * </p>
+     *
+     * @param source the name of the other feed
+     * @return the quarantine for that feed
+     */
+    public Quarantine forSource(String source) {
+        return new Quarantine(output, false, source);
+    }
+
+    /**
+     * Quarantines a rejected line.
+     *
+     * @param lineNumber the line number within the feed
+     * @param line       the content of the line
+     * @param reason     why the line was rejected
+     * @param detail     a short description of the problem, or {@code null}
+     */
+    public synchronized void add(long lineNumber, String line, RejectReason reason, String detail) {
+        counts[reason.ordinal()]++;
+        output.write(source, lineNumber, line, reason, detail);
+    }
+
+    /**
+     * Returns the number of lines quarantined for the given reason.
+     *
+     * @param reason the reason
+     * @return the number of lines
+     */
+    public synchronized long getCount(RejectReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    /**
+     * Returns the number of lines quarantined for any reason.
+     *
+     * @return the number of lines
+     */
+    public synchronized long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns a one-line summary of the per-reason counts.
+     *
+     * @return the summary, e.g. {@code 3 lines (INVALID_NUMBER=2, UNKNOWN_TYPE=1)}
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder().append(getTotal()).append(" lines (");
+        String separator = "";
+        for (RejectReason reason : REASONS) {
+            if (counts[reason.ordinal()] > 0) {
+                summary.append(separator).append(reason).append('=').append(counts[reason.ordinal()]);
+                separator = ", ";
+            }
+        }
+        return summary.append(')').toString();
+    }
+
+    /**
+     * Flushes the quarantine file and logs the summary if any line was quarantined.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (ownsOutput) {
+            output.close();
+        }
+        if (getTotal() > 0) {
+            logger.warning(String.format("Quarantined %s from %s to %s", summary(), source, output.file));
+        }
+    }
+
+    /**
+     * The quarantine file, opened on the first write and shared by all quarantines of one file.
+     */
+    private static final class Output implements Closeable {
+        private final Path file;
+        private final StringBuilder record = new StringBuilder();
+        private OutputStream out;
+
+        Output(Path file) {
+            this.file = file;
+        }
+
+        synchronized void write(String source, long lineNumber, String line, RejectReason reason, String detail) {
+            try {
+                if (out == null) {
+                    out = new BufferedOutputStream(Files.newOutputStream(file,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+                }
+                record.setLength(0);
+                record.append(source).append(':').append(lineNumber)
+                        .append('\t').append(reason.name())
+                        .append('\t').append(detail == null ? "" : detail)
+                        .append('\t').append(line).append('\n');
+                out.write(record.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write quarantine file " + file, e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+    }
+}
@@ -24,6 +24,11 @@ public class RealEstate implements PropertyInterface {
      */
     String city;
 
+    /**
+     * The {@link CityDictionary} id of the city, kept in step with {@link #city}.
+     */
+    int cityId = CityDictionary.UNKNOWN;
+
     /**
      * The base price of the property.
      */
@@ -58,6 +63,16 @@ public class RealEstate implements PropertyInterface {
      */
     Genre genre;
 
+    /**
+     * The repository holding this property, or {@code null}. Set by {@link ListingRepository}.
+     */
+    ListingRepository repository;
+
+    /**
+     * The listing id of this property in {@link #repository}, or -1.
+     */
+    int id = -1;
+
     /**
      * Constructs a default RealEstate instance.
      */
@@ -80,6 +95,7 @@ public class RealEstate implements PropertyInterface {
 
         try {
             this.city = city;
+            this.cityId = CityDictionary.id(city);
             this.price = price;
             this.sqm = sqm;
             this.numberOfRooms = numberOfRooms;
@@ -109,13 +125,26 @@ public class RealEstate implements PropertyInterface {
     public void setPrice(double price) {
         logger.info(String.format("Setting price from %.2f to %.2f", this.price, price));
         try {
+            changing();
             this.price = price;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting price: " + e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Returns the listing id of the property.
+     *
+     * @return the id assigned by the {@link ListingRepository} holding the property, or -1 if it is not held
+     *         by one
+     */
+    public int getId() {
+        logger.info("Getting listing id: " + id);
+        return id;
+    }
+
     /**
      * Returns the city where the property is located.
      *
@@ -126,6 +155,16 @@ public class RealEstate implements PropertyInterface {
         return city;
     }
 
+    /**
+     * Returns the {@link CityDictionary} id of the city.
+     *
+     * @return the city id, or {@link CityDictionary#UNKNOWN} if the property has no city
+     */
+    public int getCityId() {
+        logger.info("Getting city id: " + cityId);
+        return cityId;
+    }
+
     /**
      * Sets the city where the property is located.
      *
@@ -134,7 +173,11 @@ public class RealEstate implements PropertyInterface {
     public void setCity(String city) {
         logger.info(String.format("Setting city from '%s' to '%s'", this.city, city));
         try {
+            int cityId = CityDictionary.id(city);
+            changing();
             this.city = city;
+            this.cityId = cityId;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting city: " + e.getMessage());
             throw e;
@@ -159,7 +202,9 @@ public class RealEstate implements PropertyInterface {
     public void setSqm(double sqm) {
         logger.info(String.format("Setting sqm from %.2f to %.2f", this.sqm, sqm));
         try {
+            changing();
             this.sqm = sqm;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting sqm: " + e.getMessage());
             throw e;
@@ -184,7 +229,9 @@ public class RealEstate implements PropertyInterface {
     public void setNumberOfRooms(int numberOfRooms) {
         logger.info(String.format("Setting number of rooms from %d to %d", this.numberOfRooms, numberOfRooms));
         try {
+            changing();
             this.numberOfRooms = numberOfRooms;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting number of rooms: " + e.getMessage());
             throw e;
@@ -209,7 +256,9 @@ public class RealEstate implements PropertyInterface {
     public void setGenre(Genre genre) {
         logger.info(String.format("Setting genre from %s to %s", this.genre, genre));
         try {
+            changing();
             this.genre = genre;
+            changed();
         } catch (Exception e) {
             logger.severe("Error setting genre: " + e.getMessage());
             throw e;
@@ -226,7 +275,9 @@ public class RealEstate implements PropertyInterface {
         logger.info(String.format("Applying discount of %.2f%% to price %.2f", percentage, price));
         try {
             double oldPrice = this.price;
+            changing();
             this.price = price - (price * (percentage / 100));
+            changed();
             logger.info(String.format("Discount applied successfully. Price changed from %.2f to %.2f",
                     oldPrice, this.price));
         } catch (Exception e) {
@@ -236,7 +287,26 @@ public class RealEstate implements PropertyInterface {
     }
 
     /**
-     * Calculates the total price of the property based on its city.
+     * Announces a change of a field to the repository holding the property, before the field changes.
+     */
+    void changing() {
+        if (repository != null) {
+            repository.beforeUpdate(id);
+        }
+    }
+
+    /**
+     * Announces a change of a field to the repository holding the property, after the field changed.
+     */
+    void changed() {
+        if (repository != null) {
+            repository.afterUpdate(id);
+        }
+    }
+
+    /**
+     * Calculates the total price of the property with the {@linkplain PricingEngine#standard() standard
+     * pricing engine}.
      * <p>
      * City-based multipliers:
      * <ul>
@@ -244,6 +314,9 @@ public class RealEstate implements PropertyInterface {
      *     <li>Debrecen: +20%</li>
      *     <li>Nyiregyhaza: +15%</li>
      * </ul>
+     * Cities are matched by {@link CityDictionary} id, so any spelling of a name, with or without accents,
+     * gets its multiplier. A {@link Panel} is further adjusted by floor and insulation. The property is not
+     * changed, so repeated calls return the same total.
      *
      * @return the final total price
      */
@@ -252,26 +325,13 @@ public class RealEstate implements PropertyInterface {
         logger.info(String.format("Calculating total price for property in %s with base price %.2f",
                 city, price));
         try {
-            double originalPrice = price;
-            switch (city) {
-                case "Budapest":
-                    price *= 1.30;
-                    logger.info("Applied Budapest multiplier (1.30)");
-                    break;
-                case "Debrecen":
-                    price *= 1.20;
-                    logger.info("Applied Debrecen multiplier (1.20)");
-                    break;
-                case "Nyiregyhaza":
-                    price *= 1.15;
-                    logger.info("Applied Nyiregyhaza multiplier (1.15)");
-                    break;
-                default:
-                    logger.info("No city multiplier applied for: " + city);
-            }
-            int totalPrice = (int) Math.round(price);
+            int totalPrice = PricingEngine.standard().totalPrice(this, (stage, before, after) -> {
+                if (before != after) {
+                    logger.info(String.format("Applied %s: price changed from %.2f to %.2f", stage, before, after));
+                }
+            });
             logger.info(String.format("Total price calculated: %d (from base price %.2f)",
-                    totalPrice, originalPrice));
+                    totalPrice, price));
             return totalPrice;
         } catch (Exception e) {
             logger.severe("Error calculating total price: " + e.getMessage());
@@ -1,8 +1,18 @@
 package org.example;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.logging.*;
+import java.util.stream.Stream;
 
 /**
  * Manages a collection of real estate properties and provides analysis tools.
@@ -11,6 +21,13 @@ import java.util.logging.*;
  * performing statistical analysis, and exporting results to a text file.
  * It handles both {@link RealEstate} and {@link Panel} objects.
  * </p>
+ * <p>
+ * The loaded properties may change on the threads of {@link #followFile(String)} while other threads query
+ * them. Every method changing the loaded properties or switching the store holds the write lock of the agent,
+ * every query holds its read lock, and the followers append each batch of new records under the write lock.
+ * The store is created with the write lock of the agent as its own, so the setters of the properties the
+ * queries return from a {@link ListingRepository}, such as {@link RealEstate#setPrice(double)}, hold it as well.
+ * </p>
  *
  * @version 1.0
  */
@@ -22,9 +39,183 @@ public class RealEstateAgent {
     private static final Logger logger = Logger.getLogger(RealEstateAgent.class.getName());
 
     /**
-     * Stores all loaded real estate properties in a sorted set.
+     * Guards {@link #realEstates}, its indexes and {@link #followers}.
+     */
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The running followers of {@link #followFile(String)}, closed by {@link #closeStore()}.
+     */
+    private static final List<FeedFollower> followers = new ArrayList<>();
+
+    /**
+     * Stores all loaded real estate properties, in a {@link ListingRepository} unless
+     * {@link #useColumnarStore()} or {@link #useOffHeapStore()} was called.
+     */
+    private static AbstractListingStore realEstates;
+
+    /**
+     * Indexes of the loaded properties by city and genre, maintained over {@link #realEstates}.
+     */
+    private static ListingIndex cityIndex;
+    private static ListingIndex genreIndex;
+
+    /**
+     * Index of the loaded properties by total price, maintained over {@link #realEstates}.
+     */
+    private static TotalPriceIndex priceIndex;
+
+    /**
+     * Bitmap indexes of the loaded properties by genre, city, floor band and insulation, maintained over
+     * {@link #realEstates}.
+     */
+    private static BitmapIndex bitmapIndex;
+
+    /**
+     * Running counts, sums and averages of the loaded properties, maintained over {@link #realEstates}.
+     */
+    private static ListingStatistics statistics;
+
+    /**
+     * k-d tree over total price, area and rooms of {@link #realEstates}, built on the first range query and
+     * rebuilt once the store changed; {@code null} until then.
+     */
+    private static KdTree rangeTree;
+
+    static {
+        setStore(new ListingRepository(lock.writeLock()));
+    }
+
+    /**
+     * File receiving the lines of a feed that cannot be loaded.
+     */
+    private static String quarantineFile = "quarantine.txt";
+
+    /**
+     * File receiving a record of every discount campaign.
+     */
+    private static String discountLogFile = "discounts.txt";
+
+    /**
+     * Sets the file receiving the lines of a feed that cannot be loaded.
+     * <p>
+     * Every loader appends malformed lines to this file together with their line number and a
+     * {@link RejectReason}, and logs a single summary per load instead of one record per bad line.
+     * See {@link Quarantine} for the format.
+     * </p>
+     *
+     * @param filename the name of the quarantine file
+     */
+    public static void setQuarantineFile(String filename) {
+        logger.info("Quarantine file set to: " + filename);
+        quarantineFile = filename;
+    }
+
+    /**
+     * Switches the loaded collection to a {@link ColumnarListingStore}.
+     * <p>
+     * The store keeps the fields of all properties in primitive arrays instead of one object per property.
+     * Loaders append decoded records to it as rows, and {@link #displayResults()} computes its analysis in
+     * linear passes over those arrays, only creating objects for the properties it prints. Properties loaded
+     * so far are moved into the store.
+     * </p>
+     */
+    public static void useColumnarStore() {
+        lock.writeLock().lock();
+        try {
+            if (!(realEstates instanceof ColumnarListingStore)) {
+                switchStore(new ColumnarListingStore(lock.writeLock()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Switches the loaded collection to an {@link OffHeapListingStore}.
+     * <p>
+     * Like {@link #useColumnarStore()}, but the columns are kept in native memory outside the Java heap, so
+     * the size of the loaded data does not affect garbage collection. The memory is held until
+     * {@link #closeStore()} is called or the agent switches to another store. Properties loaded so far are
+     * moved into the store.
+     * </p>
      */
-    private static TreeSet<RealEstate> realEstates = new TreeSet<>();
+    public static void useOffHeapStore() {
+        lock.writeLock().lock();
+        try {
+            if (!(realEstates instanceof OffHeapListingStore)) {
+                switchStore(new OffHeapListingStore(lock.writeLock()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Discards the loaded properties and releases the native memory of an off-heap store.
+     * <p>
+     * The agent starts over with an empty {@link ListingRepository}. Running followers of
+     * {@link #followFile(String)} are closed first, so no record is appended to the discarded store.
+     * </p>
+     */
+    public static void closeStore() {
+        lock.writeLock().lock();
+        try {
+            for (FeedFollower follower : followers) {
+                try {
+                    follower.close();
+                } catch (IOException e) {
+                    logger.warning("Error closing follower: " + e.getMessage());
+                }
+            }
+            followers.clear();
+            AbstractListingStore previous = realEstates;
+            setStore(new ListingRepository(lock.writeLock()));
+            if (previous instanceof OffHeapListingStore offHeap) {
+                offHeap.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void switchStore(AbstractListingStore store) {
+        AbstractListingStore previous = realEstates;
+        store.addAll(previous);
+        setStore(store);
+        if (previous instanceof OffHeapListingStore offHeap) {
+            offHeap.close();
+        }
+        logger.info(String.format("Switched to %s with %d properties", store.getClass().getSimpleName(), store.size()));
+    }
+
+    private static void setStore(AbstractListingStore store) {
+        if (rangeTree != null) {
+            rangeTree.detach();
+            rangeTree = null;
+        }
+        realEstates = store;
+        cityIndex = ListingIndex.byCity(store);
+        genreIndex = ListingIndex.byGenre(store);
+        priceIndex = new TotalPriceIndex(store);
+        bitmapIndex = new BitmapIndex(store);
+        statistics = new ListingStatistics(store);
+    }
+
+    /**
+     * Sets the file receiving a record of every discount campaign.
+     *
+     * @param filename the name of the discount log
+     * @see #applyDiscount(ListingFilter, double)
+     */
+    public static void setDiscountLogFile(String filename) {
+        logger.info("Discount log file set to: " + filename);
+        discountLogFile = filename;
+    }
+
+    private static Quarantine openQuarantine(String source) {
+        return new Quarantine(Path.of(quarantineFile), source);
+    }
 
     /**
      * Loads real estate data from a specified file.
@@ -34,77 +225,468 @@ public class RealEstateAgent {
      *   <li>{@code REALESTATE#city#price#sqm#rooms#genre}</li>
      *   <li>{@code PANEL#city#price#sqm#rooms#genre#floor#isInsulated}</li>
      * </ul>
+     * Lines that cannot be loaded are moved to the quarantine file, see {@link #setQuarantineFile(String)}.
+     * Files ending in {@code .gz} are decompressed on the fly by {@link CompressedFeedReader}.
+     * Errors are reported on the console instead of being thrown; the result tells whether the load completed.
      *
      * @param filename the name of the file to read from
+     * @return true if the whole file was read, false if it was not found or could not be read
      */
-    public static void loadFromFile(String filename) {
-        logger.info("Starting to load real estate data from file: " + filename);
-        int loadedCount = 0;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            logger.info("File opened successfully: " + filename);
-            String line;
-            int lineNumber = 0;
-
-            while ((line = br.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
-                if (line.isEmpty()) {
-                    logger.info("Skipping empty line at line number: " + lineNumber);
-                    continue;
-                }
+    public static boolean loadFromFile(String filename) {
+        lock.writeLock().lock();
+        try {
+            if (CompressedFeedReader.isCompressed(Path.of(filename))) {
+                return loadFromCompressedFile(filename, ListingFilter.ALL);
+            }
+            logger.info("Starting to load real estate data from file: " + filename);
 
-                try {
-                    String[] parts = line.split("#");
-                    String className = parts[0];
-                    logger.info(String.format("Processing line %d: type=%s", lineNumber, className));
-
-                    if (className.equalsIgnoreCase("REALESTATE")) {
-                        String city = parts[1];
-                        double price = Double.parseDouble(parts[2]);
-                        int sqm = Integer.parseInt(parts[3]);
-                        int numberOfRooms = Integer.parseInt(parts[4]);
-                        RealEstate.Genre genre = RealEstate.Genre.valueOf(parts[5].toUpperCase());
-
-                        realEstates.add(new RealEstate(city, price, sqm, numberOfRooms, genre));
-                        loadedCount++;
-                        logger.info(String.format("Added RealEstate: city=%s, price=%.2f", city, price));
-
-                    } else if (className.equalsIgnoreCase("PANEL")) {
-                        String city = parts[1];
-                        double price = Double.parseDouble(parts[2]);
-                        int sqm = Integer.parseInt(parts[3]);
-                        int numberOfRooms = Integer.parseInt(parts[4]);
-                        RealEstate.Genre genre = RealEstate.Genre.valueOf(parts[5].toUpperCase());
-                        int floor = Integer.parseInt(parts[6]);
-                        boolean isInsulated = parts[7].equalsIgnoreCase("yes");
-
-                        realEstates.add(new Panel(city, price, sqm, numberOfRooms, genre, floor, isInsulated));
-                        loadedCount++;
-                        logger.info(String.format("Added Panel: city=%s, price=%.2f, floor=%d, insulated=%b",
-                                city, price, floor, isInsulated));
-                    } else {
-                        logger.warning(String.format("Unknown property type '%s' at line %d", className, lineNumber));
+            try (Quarantine quarantine = openQuarantine(filename);
+                 BufferedReader br = new BufferedReader(new FileReader(filename))) {
+                CollectingSink sink = new CollectingSink(realEstates);
+                SplitFields fields = new SplitFields();
+                logger.info("File opened successfully: " + filename);
+                String line;
+                int lineNumber = 0;
+
+                while ((line = br.readLine()) != null) {
+                    lineNumber++;
+                    line = line.trim();
+                    if (line.isEmpty()) {
+                        logger.info("Skipping empty line at line number: " + lineNumber);
+                        continue;
+                    }
+
+                    try {
+                        String[] parts = line.split("#");
+                        String className = parts[0];
+                        logger.info(String.format("Processing line %d: type=%s", lineNumber, className));
+
+                        RecordCodec<?> codec = RecordCodecs.DEFAULT.get(className, 0, className.length());
+                        if (codec == null) {
+                            quarantine.add(lineNumber, line, RejectReason.UNKNOWN_TYPE, className);
+                        } else if (parts.length < codec.fieldCount()) {
+                            quarantine.add(lineNumber, line, RejectReason.MISSING_FIELDS,
+                                    "Expected " + codec.fieldCount() + " fields but found " + parts.length);
+                        } else {
+                            fields.parts = parts;
+                            codec.decode(fields, sink);
+                            logger.info(String.format("Added %s: city=%s, price=%s",
+                                    codec.type().getSimpleName(), parts[1], parts[2]));
+                        }
+                    } catch (Exception e) {
+                        quarantine.add(lineNumber, line, RejectReason.of(e), e.getMessage());
                     }
-                } catch (Exception e) {
-                    logger.severe(String.format("Error parsing line %d: %s - Error: %s",
-                            lineNumber, line, e.getMessage()));
                 }
+
+                logger.info(String.format("File loading completed. Successfully loaded %d properties from file.",
+                        sink.getLoadedCount()));
+                System.out.println("Successfully loaded " + realEstates.size() + " properties from file.");
+                return true;
+
+            } catch (FileNotFoundException e) {
+                logger.severe("File not found: " + filename + " - " + e.getMessage());
+                System.err.println("File not found: " + filename);
+                System.err.println("Please ensure the file exists or use loadSampleData() method.");
+            } catch (IOException e) {
+                logger.severe("Error reading file: " + filename + " - " + e.getMessage());
+                System.err.println("Error reading file: " + e.getMessage());
+            } catch (Exception e) {
+                logger.severe("Unexpected error while loading file: " + e.getMessage());
+                System.err.println("Error parsing data: " + e.getMessage());
             }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the properties of a gzip-compressed file that match a filter, decompressing and parsing the file
+     * concurrently.
+     *
+     * @param filename the name of the compressed file to read from
+     * @param filter   the filter selecting the lines to load, {@link ListingFilter#ALL} for every line
+     * @return true if the whole file was read
+     */
+    private static boolean loadFromCompressedFile(String filename, ListingFilter filter) {
+        logger.info("Starting to load real estate data from compressed file: " + filename);
 
-            logger.info(String.format("File loading completed. Successfully loaded %d properties from file.", loadedCount));
+        try (Quarantine quarantine = openQuarantine(filename)) {
+            CollectingSink sink = new CollectingSink(realEstates, quarantine);
+            long lines = CompressedFeedReader.read(Path.of(filename), filter, sink);
+            logger.info(String.format("File loading completed. Loaded %d properties from %d lines, %d rejected.",
+                    sink.getLoadedCount(), lines, sink.getRejectedCount()));
             System.out.println("Successfully loaded " + realEstates.size() + " properties from file.");
+            return true;
 
-        } catch (FileNotFoundException e) {
+        } catch (NoSuchFileException e) {
             logger.severe("File not found: " + filename + " - " + e.getMessage());
             System.err.println("File not found: " + filename);
             System.err.println("Please ensure the file exists or use loadSampleData() method.");
         } catch (IOException e) {
             logger.severe("Error reading file: " + filename + " - " + e.getMessage());
             System.err.println("Error reading file: " + e.getMessage());
-        } catch (Exception e) {
-            logger.severe("Unexpected error while loading file: " + e.getMessage());
-            System.err.println("Error parsing data: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Loads the properties of a file that match a filter.
+     * <p>
+     * Accepts the same format as {@link #loadFromFile(String)}, but parses the raw bytes with
+     * {@link MappedFeedReader} and applies the filter to the record type, city and genre of each line before
+     * the numeric fields are parsed. Lines the filter rejects never reach number parsing or object
+     * construction, so a selective filter costs little more than scanning the file. For example,
+     * {@code loadFromFile("realestates.txt", ListingFilter.inCity("Budapest"))} loads only Budapest properties.
+     * </p>
+     * <p>
+     * Malformed lines are quarantined when their type, city or genre cannot be read, or when they pass the
+     * filter and a numeric field is invalid. Files ending in {@code .gz} are decompressed by
+     * {@link CompressedFeedReader}, which applies the filter the same way.
+     * </p>
+     *
+     * @param filename the name of the file to read from
+     * @param filter   the filter selecting the lines to load
+     */
+    public static void loadFromFile(String filename, ListingFilter filter) {
+        lock.writeLock().lock();
+        try {
+            if (CompressedFeedReader.isCompressed(Path.of(filename))) {
+                loadFromCompressedFile(filename, filter);
+                return;
+            }
+            logger.info("Starting filtered load of real estate data from file: " + filename);
+
+            try (Quarantine quarantine = openQuarantine(filename)) {
+                CollectingSink sink = new CollectingSink(realEstates, quarantine);
+                long lines = MappedFeedReader.read(Path.of(filename), filter, sink);
+                logger.info(String.format("File loading completed. Loaded %d matching properties from %d lines, "
+                        + "%d rejected.", sink.getLoadedCount(), lines, sink.getRejectedCount()));
+                System.out.println("Successfully loaded " + realEstates.size() + " properties from file.");
+
+            } catch (NoSuchFileException e) {
+                logger.severe("File not found: " + filename + " - " + e.getMessage());
+                System.err.println("File not found: " + filename);
+                System.err.println("Please ensure the file exists or use loadSampleData() method.");
+            } catch (IOException e) {
+                logger.severe("Error reading file: " + filename + " - " + e.getMessage());
+                System.err.println("Error reading file: " + e.getMessage());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads real estate data from a specified file using the memory-mapped parser.
+     * <p>
+     * Accepts the same format as {@link #loadFromFile(String)}, but maps the file with
+     * {@link java.nio.channels.FileChannel#map} and decodes fields straight from the raw bytes through
+     * {@link MappedFeedReader}. Numeric fields never pass through intermediate {@code String}s and city names
+     * are deduplicated, which makes this the preferred loader for large feeds. Files ending in {@code .gz}
+     * cannot be mapped and are decompressed by {@link CompressedFeedReader} instead.
+     * </p>
+     *
+     * @param filename the name of the file to read from
+     */
+    public static void loadFromFileMapped(String filename) {
+        lock.writeLock().lock();
+        try {
+            if (CompressedFeedReader.isCompressed(Path.of(filename))) {
+                loadFromCompressedFile(filename, ListingFilter.ALL);
+                return;
+            }
+            logger.info("Starting memory-mapped load of real estate data from file: " + filename);
+
+            try (Quarantine quarantine = openQuarantine(filename)) {
+                CollectingSink sink = new CollectingSink(realEstates, quarantine);
+                long lines = MappedFeedReader.read(Path.of(filename), sink);
+                logger.info(String.format("File loading completed. Loaded %d properties from %d lines, %d rejected.",
+                        sink.getLoadedCount(), lines, sink.getRejectedCount()));
+                System.out.println("Successfully loaded " + realEstates.size() + " properties from file.");
+
+            } catch (NoSuchFileException e) {
+                logger.severe("File not found: " + filename + " - " + e.getMessage());
+                System.err.println("File not found: " + filename);
+                System.err.println("Please ensure the file exists or use loadSampleData() method.");
+            } catch (IOException e) {
+                logger.severe("Error reading file: " + filename + " - " + e.getMessage());
+                System.err.println("Error reading file: " + e.getMessage());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads real estate data from a specified file, parsing it on all available cores.
+     * <p>
+     * The file is split into newline-aligned ranges that are parsed concurrently by {@link ParallelFeedReader}
+     * on the common {@link java.util.concurrent.ForkJoinPool}. The properties of each range are collected
+     * separately and merged into the loaded collection in file order once all ranges are done. Rejected lines
+     * are quarantined with the same line numbers {@link #loadFromFile(String)} would report. Files ending in
+     * {@code .gz} cannot be split into ranges and are decompressed by {@link CompressedFeedReader} instead.
+     * </p>
+     *
+     * @param filename the name of the file to read from
+     */
+    public static void loadFromFileParallel(String filename) {
+        lock.writeLock().lock();
+        try {
+            if (CompressedFeedReader.isCompressed(Path.of(filename))) {
+                loadFromCompressedFile(filename, ListingFilter.ALL);
+                return;
+            }
+            logger.info("Starting parallel load of real estate data from file: " + filename);
+
+            try (Quarantine quarantine = openQuarantine(filename)) {
+                CollectingSink rejections = new CollectingSink(realEstates, quarantine);
+                List<CollectingSink> chunks = ParallelFeedReader.read(Path.of(filename),
+                        () -> new CollectingSink(new ArrayList<>()), rejections);
+                int loadedCount = 0;
+                for (CollectingSink chunk : chunks) {
+                    realEstates.addAll(chunk.getTarget());
+                    loadedCount += chunk.getLoadedCount();
+                }
+                logger.info(String.format("File loading completed. Loaded %d properties from %d ranges, %d rejected.",
+                        loadedCount, chunks.size(), rejections.getRejectedCount()));
+                System.out.println("Successfully loaded " + realEstates.size() + " properties from file.");
+
+            } catch (NoSuchFileException e) {
+                logger.severe("File not found: " + filename + " - " + e.getMessage());
+                System.err.println("File not found: " + filename);
+                System.err.println("Please ensure the file exists or use loadSampleData() method.");
+            } catch (IOException e) {
+                logger.severe("Error reading file: " + filename + " - " + e.getMessage());
+                System.err.println("Error reading file: " + e.getMessage());
+            } catch (Exception e) {
+                logger.severe("Unexpected error while loading file: " + e.getMessage());
+                System.err.println("Error parsing data: " + e.getMessage());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads real estate data from several files at once.
+     * <p>
+     * The argument may name a single file, a directory, whose regular files are all loaded, or a glob pattern
+     * such as {@code feeds/*.txt}. The files are read concurrently by {@link MultiFeedReader} and merged into
+     * the loaded collection in path order, so the result is the same as loading them one by one. The number
+     * of properties, rejected lines and the time taken are reported for every file.
+     * </p>
+     *
+     * @param pattern the file, directory or glob pattern to load
+     */
+    public static void loadFromFiles(String pattern) {
+        lock.writeLock().lock();
+        try {
+            logger.info("Starting to load real estate data from files: " + pattern);
+            long start = System.nanoTime();
+
+            try (Quarantine quarantine = openQuarantine(pattern)) {
+                List<Path> files = MultiFeedReader.resolve(pattern);
+                int loadedCount = 0;
+                for (MultiFeedReader.FeedResult result : MultiFeedReader.read(files, quarantine)) {
+                    realEstates.addAll(result.listings());
+                    loadedCount += result.listings().size();
+                    System.out.printf("  %s: %d properties, %d rejected, %.1f ms%n", result.file(),
+                            result.listings().size(), result.rejected(), result.nanos() / 1e6);
+                }
+                logger.info(String.format("File loading completed. Loaded %d properties from %d files in %.1f ms.",
+                        loadedCount, files.size(), (System.nanoTime() - start) / 1e6));
+                System.out.println("Successfully loaded " + realEstates.size() + " properties from "
+                        + files.size() + " files.");
+
+            } catch (NoSuchFileException e) {
+                logger.severe("File not found: " + e.getMessage());
+                System.err.println("File not found: " + e.getMessage());
+                System.err.println("Please ensure the file exists or use loadSampleData() method.");
+            } catch (IOException e) {
+                logger.severe("Error reading files: " + pattern + " - " + e.getMessage());
+                System.err.println("Error reading file: " + e.getMessage());
+            } catch (Exception e) {
+                logger.severe("Unexpected error while loading files: " + e.getMessage());
+                System.err.println("Error parsing data: " + e.getMessage());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts following a feed file that is being appended to.
+     * <p>
+     * The file is loaded once from the beginning, after which only bytes appended later are parsed and
+     * added to the loaded collection. Truncation and rotation of the file are detected by {@link FeedFollower}.
+     * Following runs on a daemon thread until the returned follower or the store is closed, see
+     * {@link #closeStore()}. The records of each poll are appended under the write lock of the agent to the
+     * store that is current at that time, so following continues into the new store after
+     * {@link #useColumnarStore()} or {@link #useOffHeapStore()}.
+     * </p>
+     *
+     * @param filename the name of the file to follow
+     * @return the running follower; close it to stop following
+     */
+    public static FeedFollower followFile(String filename) {
+        logger.info("Starting to follow real estate data file: " + filename);
+        Quarantine quarantine = openQuarantine(filename);
+        FeedFollower follower = new FeedFollower(Path.of(filename), new FollowerSink(quarantine), lock.writeLock());
+        lock.writeLock().lock();
+        try {
+            followers.add(follower);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Thread thread = new Thread(() -> {
+            try (quarantine) {
+                follower.follow();
+            } catch (IOException e) {
+                logger.severe("Error following file: " + filename + " - " + e.getMessage());
+            } catch (RuntimeException e) {
+                logger.severe("Unexpected error while following file: " + filename + " - " + e);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    followers.remove(follower);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }, "feed-follower");
+        thread.setDaemon(true);
+        thread.start();
+        return follower;
+    }
+
+    /**
+     * Writes all loaded properties to a binary snapshot file.
+     * <p>
+     * The snapshot can be reloaded with {@link #loadSnapshot(String)} much faster than the text feed can be
+     * parsed. See {@link ListingSnapshot} for the format.
+     * </p>
+     *
+     * @param filename the name of the snapshot file to write
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void saveSnapshot(String filename) throws IOException {
+        lock.readLock().lock();
+        try {
+            logger.info("Saving snapshot of " + realEstates.size() + " properties to file: " + filename);
+            try {
+                ListingSnapshot.write(Path.of(filename), realEstates);
+                logger.info("Snapshot saved successfully: " + filename);
+            } catch (IOException e) {
+                logger.severe("Error writing snapshot: " + filename + " - " + e.getMessage());
+                throw e;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads properties from a binary snapshot written by {@link #saveSnapshot(String)}.
+     *
+     * @param filename the name of the snapshot file to read
+     * @throws IOException if the snapshot cannot be read or is not a supported snapshot
+     */
+    public static void loadSnapshot(String filename) throws IOException {
+        lock.writeLock().lock();
+        try {
+            logger.info("Starting to load real estate data from snapshot: " + filename);
+            CollectingSink sink = new CollectingSink(realEstates);
+            try {
+                long records = ListingSnapshot.read(Path.of(filename), sink);
+                logger.info(String.format("Snapshot loading completed. Loaded %d of %d records.",
+                        sink.getLoadedCount(), records));
+                System.out.println("Successfully loaded " + realEstates.size() + " properties from snapshot.");
+            } catch (IOException e) {
+                logger.severe("Error reading snapshot: " + filename + " - " + e.getMessage());
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads pricing rules from a file and makes them the rules of every later pricing.
+     * <p>
+     * The rules are compiled and swapped in atomically by {@link PricingEngine#install(PricingRules)}, so they
+     * can be reloaded while the agent runs. The total-price index and the statistics are rebuilt with the new
+     * totals and the k-d tree is rebuilt on the next range query. If the file cannot be loaded, the current rules stay in place.
+     * See {@link PricingRules} for the format.
+     * </p>
+     *
+     * @param filename the name of the rules file
+     * @throws IOException if the file cannot be read or contains an invalid rule
+     */
+    public static void loadPricingRules(String filename) throws IOException {
+        lock.writeLock().lock();
+        try {
+            logger.info("Loading pricing rules from file: " + filename);
+            try {
+                PricingEngine.install(PricingRules.load(Path.of(filename)));
+            } catch (IOException e) {
+                logger.severe("Error loading pricing rules: " + filename + " - " + e.getMessage());
+                throw e;
+            }
+            priceIndex.detach();
+            priceIndex = new TotalPriceIndex(realEstates);
+            statistics.detach();
+            statistics = new ListingStatistics(realEstates);
+            if (rangeTree != null) {
+                rangeTree.detach();
+                rangeTree = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reduces the base prices of the loaded properties a filter accepts by a percentage, as one campaign,
+     * for example 5% off every flat in Debrecen with
+     * {@code applyDiscount(ListingFilter.inCity("Debrecen").and(ListingFilter.ofGenre(Genre.FLAT)), 5)}.
+     * <p>
+     * The discount is applied by {@link ListingStore#makeDiscount(IntPredicate, double)}: the filter is
+     * evaluated on all rows in parallel and the prices are written as one change, which the indexes follow in
+     * one step instead of once per property. Instead of two log records per property, the campaign logs one
+     * summary and appends one tab-separated record to the discount log:
+     * </p>
+     * <pre>
+     * timestamp	percentage	number of properties
+     * </pre>
+     *
+     * @param filter     the filter selecting the properties, seeing their type, city and genre
+     * @param percentage the discount percentage
+     * @return the number of discounted properties
+     * @throws IOException if the record cannot be appended to the discount log; the discount is applied
+     *                     nevertheless
+     * @see #setDiscountLogFile(String)
+     */
+    public static int applyDiscount(ListingFilter filter, double percentage) throws IOException {
+        lock.writeLock().lock();
+        try {
+            AbstractListingStore store = realEstates;
+            long start = System.nanoTime();
+            int count = store.makeDiscount(row -> filter.test(store.isPanel(row) ? Panel.class : RealEstate.class,
+                    store.city(row), store.genre(row)), percentage).cardinality();
+            logger.info(String.format("Applied a discount of %.2f%% to %d properties in %d ms", percentage, count,
+                    (System.nanoTime() - start) / 1_000_000));
+            String record = Instant.now() + "\t" + percentage + "\t" + count + "\n";
+            try {
+                Files.writeString(Path.of(discountLogFile), record, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.severe("Error writing discount log: " + discountLogFile + " - " + e.getMessage());
+                throw e;
+            }
+            return count;
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -115,24 +697,29 @@ public class RealEstateAgent {
      * </p>
      */
     public static void loadSampleData() {
-        logger.info("Loading sample real estate data");
+        lock.writeLock().lock();
         try {
-            realEstates.add(new RealEstate("Budapest", 250000, 100, 4, RealEstate.Genre.FLAT));
-            realEstates.add(new RealEstate("Debrecen", 220000, 120, 5, RealEstate.Genre.FAMILYHOUSE));
-            realEstates.add(new RealEstate("Nyíregyháza", 110000, 60, 2, RealEstate.Genre.FARM));
-            realEstates.add(new RealEstate("Nyíregyháza", 250000, 160, 6, RealEstate.Genre.FAMILYHOUSE));
-            realEstates.add(new RealEstate("Kisvárda", 150000, 50, 2, RealEstate.Genre.FLAT));
-            realEstates.add(new Panel("Nyíregyháza", 150000, 68, 4, RealEstate.Genre.FLAT, 4, true));
-            realEstates.add(new Panel("Budapest", 180000, 70, 3, RealEstate.Genre.FLAT, 4, false));
-            realEstates.add(new Panel("Debrecen", 120000, 35, 2, RealEstate.Genre.FLAT, 0, true));
-            realEstates.add(new Panel("Tiszaújváros", 120000, 750, 3, RealEstate.Genre.FLAT, 10, false));
-            realEstates.add(new Panel("Nyíregyháza", 170000, 80, 3, RealEstate.Genre.FLAT, 7, false));
-
-            logger.info("Sample data loaded successfully: " + realEstates.size() + " properties.");
-            System.out.println("Sample data loaded: " + realEstates.size() + " properties.");
-        } catch (Exception e) {
-            logger.severe("Error loading sample data: " + e.getMessage());
-            throw e;
+            logger.info("Loading sample real estate data");
+            try {
+                realEstates.add(new RealEstate("Budapest", 250000, 100, 4, RealEstate.Genre.FLAT));
+                realEstates.add(new RealEstate("Debrecen", 220000, 120, 5, RealEstate.Genre.FAMILYHOUSE));
+                realEstates.add(new RealEstate("Nyíregyháza", 110000, 60, 2, RealEstate.Genre.FARM));
+                realEstates.add(new RealEstate("Nyíregyháza", 250000, 160, 6, RealEstate.Genre.FAMILYHOUSE));
+                realEstates.add(new RealEstate("Kisvárda", 150000, 50, 2, RealEstate.Genre.FLAT));
+                realEstates.add(new Panel("Nyíregyháza", 150000, 68, 4, RealEstate.Genre.FLAT, 4, true));
+                realEstates.add(new Panel("Budapest", 180000, 70, 3, RealEstate.Genre.FLAT, 4, false));
+                realEstates.add(new Panel("Debrecen", 120000, 35, 2, RealEstate.Genre.FLAT, 0, true));
+                realEstates.add(new Panel("Tiszaújváros", 120000, 750, 3, RealEstate.Genre.FLAT, 10, false));
+                realEstates.add(new Panel("Nyíregyháza", 170000, 80, 3, RealEstate.Genre.FLAT, 7, false));
+
+                logger.info("Sample data loaded successfully: " + realEstates.size() + " properties.");
+                System.out.println("Sample data loaded: " + realEstates.size() + " properties.");
+            } catch (Exception e) {
+                logger.severe("Error loading sample data: " + e.getMessage());
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -150,131 +737,462 @@ public class RealEstateAgent {
      * @throws IOException if writing to the output file fails
      */
     public static void displayResults() throws IOException {
-        logger.info("Starting to display analysis results for " + realEstates.size() + " properties");
+        lock.readLock().lock();
+        try {
+            logger.info("Starting to display analysis results for " + realEstates.size() + " properties");
 
-        if (realEstates.isEmpty()) {
-            logger.warning("No properties loaded. Cannot display results.");
-            System.out.println("No properties loaded. Cannot display results.");
-            return;
+            if (realEstates.isEmpty()) {
+                logger.warning("No properties loaded. Cannot display results.");
+                System.out.println("No properties loaded. Cannot display results.");
+                return;
+            }
+
+            try {
+                logger.info("Calculating average price, cheapest property, most expensive Budapest property and total price");
+                ListingStore store = realEstates;
+                ListingAnalysis analysis = store.analyze();
+                double avgPrice = analysis.getAverageTotalPrice();
+                writeResults(analysis, genreIndex.stream(RealEstate.Genre.FLAT.ordinal())
+                        .filter(row -> store.totalPrice(row) <= avgPrice)
+                        .mapToObj(store::get));
+
+            } catch (Exception e) {
+                logger.severe("Error during analysis and display: " + e.getMessage());
+                throw e;
+            }
+        } finally {
+            lock.readLock().unlock();
         }
+    }
+
+    /**
+     * Displays the same analysis as {@link #displayResults()} for a feed file without loading it.
+     * <p>
+     * The file is read twice through {@link FeedStream}: once to accumulate the running statistics and once
+     * to list the affordable condominiums, which depend on the average price. Properties are never collected,
+     * so memory use does not depend on the size of the feed, and the loaded collection is left untouched.
+     * </p>
+     *
+     * @param filename the name of the feed file to analyse
+     * @throws IOException if the feed cannot be read or writing to the output file fails
+     */
+    public static void displayResults(String filename) throws IOException {
+        logger.info("Starting to display streamed analysis results for file: " + filename);
 
         try {
-            StringBuilder output = new StringBuilder();
-            output.append("===== REAL ESTATE AGENT ANALYSIS =====\n\n");
+            ListingAnalysis analysis = new ListingAnalysis();
+            CollectingSink rejections;
+            try (Quarantine quarantine = openQuarantine(filename)) {
+                rejections = new CollectingSink(new ArrayList<>(), quarantine);
+                try (Stream<RealEstate> listings = FeedStream.open(Path.of(filename), rejections)) {
+                    listings.forEach(analysis::add);
+                }
+            }
+            logger.info(String.format("First pass completed: %d properties, %d rejected lines",
+                    analysis.getCount(), rejections.getRejectedCount()));
+
+            if (analysis.getCount() == 0) {
+                logger.warning("No properties found in " + filename + ". Cannot display results.");
+                System.out.println("No properties loaded. Cannot display results.");
+                return;
+            }
+
+            try (Stream<RealEstate> listings = FeedStream.open(Path.of(filename), null)) {
+                writeResults(analysis, listings);
+            }
+
+        } catch (UncheckedIOException e) {
+            logger.severe("Error reading file: " + filename + " - " + e.getMessage());
+            throw e.getCause();
+        } catch (Exception e) {
+            logger.severe("Error during analysis and display: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Prints the results of a completed first pass and writes them to {@code outputRealEstate.txt}.
+     * <p>
+     * The condominium listing is produced while {@code listings} is consumed, so it is written out line by
+     * line instead of being collected first.
+     * </p>
+     *
+     * @param analysis the statistics accumulated in the first pass
+     * @param listings the properties again, in the same order, for the second pass
+     * @throws IOException if writing to the output file fails
+     */
+    private static void writeResults(ListingAnalysis analysis, Stream<RealEstate> listings) throws IOException {
+        logger.info("Writing analysis results to outputRealEstate.txt");
+        try (PrintWriter pw = new PrintWriter(new FileWriter("outputRealEstate.txt"))) {
+            pw.print("===== REAL ESTATE AGENT ANALYSIS =====\n\n");
 
             // Analysis 1: Average square meter price
-            logger.info("Calculating average square meter price");
-            double avgSqmPrice = realEstates.stream()
-                    .mapToDouble(RealEstate::getPrice)
-                    .average()
-                    .orElse(0.0);
-            String result1 = String.format("1. Average square meter price: %.2f Ft\n", avgSqmPrice);
-            output.append(result1);
-            System.out.print(result1);
+            double avgSqmPrice = analysis.getAverageBasePrice();
+            emit(pw, String.format("1. Average square meter price: %.2f Ft\n", avgSqmPrice));
             logger.info(String.format("Average square meter price calculated: %.2f Ft", avgSqmPrice));
 
             // Analysis 2: Cheapest property
-            logger.info("Finding cheapest property");
-            RealEstate cheapest = realEstates.stream()
-                    .min(Comparator.comparingInt(RealEstate::getTotalPrice))
-                    .orElse(null);
-            String result2 = String.format("2. Cheapest property total price: %d Ft\n",
-                    cheapest != null ? cheapest.getTotalPrice() : 0);
-            output.append(result2);
-            System.out.print(result2);
+            RealEstate cheapest = analysis.getCheapest();
+            emit(pw, String.format("2. Cheapest property total price: %d Ft\n", analysis.getCheapestTotalPrice()));
             if (cheapest != null) {
                 logger.info(String.format("Cheapest property found: %d Ft in %s",
-                        cheapest.getTotalPrice(), cheapest.getCity()));
+                        analysis.getCheapestTotalPrice(), cheapest.getCity()));
             } else {
                 logger.warning("No cheapest property found");
             }
 
             // Analysis 3: Most expensive in Budapest
-            logger.info("Finding most expensive property in Budapest");
-            RealEstate mostExpensiveBudapest = realEstates.stream()
-                    .filter(re -> re.getCity().equalsIgnoreCase("Budapest"))
-                    .max(Comparator.comparingInt(RealEstate::getTotalPrice))
-                    .orElse(null);
-            String result3 = mostExpensiveBudapest != null
-                    ? String.format("3. Most expensive Budapest property - avg sqm per room: %.2f m²\n",
-                    mostExpensiveBudapest.averageSqmPerRoom())
-                    : "3. No properties found in Budapest\n";
-            output.append(result3);
-            System.out.print(result3);
-            if (mostExpensiveBudapest != null) {
+            if (analysis.hasBudapestProperty()) {
+                emit(pw, String.format("3. Most expensive Budapest property - avg sqm per room: %.2f m²\n",
+                        analysis.getMostExpensiveBudapestSqmPerRoom()));
                 logger.info(String.format("Most expensive Budapest property: %.2f m² per room",
-                        mostExpensiveBudapest.averageSqmPerRoom()));
+                        analysis.getMostExpensiveBudapestSqmPerRoom()));
             } else {
+                emit(pw, "3. No properties found in Budapest\n");
                 logger.warning("No properties found in Budapest");
             }
 
             // Analysis 4: Total price
-            logger.info("Calculating total price of all properties");
-            long totalPrice = realEstates.stream()
-                    .mapToLong(RealEstate::getTotalPrice)
-                    .sum();
-            String result4 = String.format("4. Total price of all properties: %d Ft\n", totalPrice);
-            output.append(result4);
-            System.out.print(result4);
+            long totalPrice = analysis.getTotalPriceSum();
+            emit(pw, String.format("4. Total price of all properties: %d Ft\n", totalPrice));
             logger.info(String.format("Total price of all properties: %d Ft", totalPrice));
 
             // Analysis 5: Affordable condominiums
             logger.info("Finding affordable condominiums");
-            double avgPrice = realEstates.stream()
-                    .mapToInt(RealEstate::getTotalPrice)
-                    .average()
-                    .orElse(0.0);
+            double avgPrice = analysis.getAverageTotalPrice();
             logger.info(String.format("Average property price: %.2f Ft", avgPrice));
-
-            output.append("\n5. Condominium properties with price <= average price (")
-                    .append(String.format("%.2f Ft):\n", avgPrice));
-            System.out.print("\n5. Condominium properties with price <= average price ("
+            emit(pw, "\n5. Condominium properties with price <= average price ("
                     + String.format("%.2f Ft):\n", avgPrice));
 
-            List<RealEstate> affordableCondos = realEstates.stream()
-                    .filter(re -> re.getGenre() == RealEstate.Genre.FLAT)
-                    .filter(re -> re.getTotalPrice() <= avgPrice)
-                    .toList();
+            long[] found = new long[1];
+            listings.forEach(re -> {
+                int price = re.getTotalPrice();
+                if (analysis.isAffordableCondo(re, price)) {
+                    found[0]++;
+                    emit(pw, String.format("   - %s\n", re.toString()));
+                    logger.info(String.format("Affordable condo: %s, price: %d Ft", re.getCity(), price));
+                }
+            });
 
-            if (affordableCondos.isEmpty()) {
-                output.append("   No condominiums found within average price.\n");
-                System.out.println("   No condominiums found within average price.");
+            if (found[0] == 0) {
+                emit(pw, "   No condominiums found within average price.\n");
                 logger.info("No affordable condominiums found");
             } else {
-                logger.info(String.format("Found %d affordable condominiums", affordableCondos.size()));
-                for (RealEstate re : affordableCondos) {
-                    String line = String.format("   - %s\n", re.toString());
-                    output.append(line);
-                    System.out.print(line);
-                    logger.info(String.format("Affordable condo: %s, price: %d Ft",
-                            re.getCity(), re.getTotalPrice()));
-                }
+                logger.info(String.format("Found %d affordable condominiums", found[0]));
             }
 
-            // Write to file
-            logger.info("Writing analysis results to outputRealEstate.txt");
-            try (PrintWriter pw = new PrintWriter(new FileWriter("outputRealEstate.txt"))) {
-                pw.print(output.toString());
-                logger.info("Results successfully written to outputRealEstate.txt");
-                System.out.println("\n===== Results written to outputRealEstate.txt =====");
-            } catch (IOException e) {
-                logger.severe("Failed to write results to file: " + e.getMessage());
-                throw e;
+            if (pw.checkError()) {
+                throw new IOException("Error writing to outputRealEstate.txt");
             }
+            logger.info("Results successfully written to outputRealEstate.txt");
+            System.out.println("\n===== Results written to outputRealEstate.txt =====");
 
-        } catch (Exception e) {
-            logger.severe("Error during analysis and display: " + e.getMessage());
+        } catch (IOException e) {
+            logger.severe("Failed to write results to file: " + e.getMessage());
             throw e;
         }
     }
 
     /**
-     * Returns the set of all loaded real estate properties.
+     * Prints a piece of the analysis to the console and to the output file.
+     */
+    private static void emit(PrintWriter pw, String text) {
+        pw.print(text);
+        System.out.print(text);
+    }
+
+    /**
+     * Returns the loaded properties in a city.
+     * <p>
+     * The city is matched by {@link CityDictionary} id, ignoring case and accents. The matching rows are read
+     * from the city index, so the cost depends on the number of matches rather than on the number of loaded
+     * properties. The returned properties are the loaded objects in a {@link ListingRepository} and copies in
+     * the other stores.
+     * </p>
+     *
+     * @param city the city
+     * @return the properties in the city
+     */
+    public static List<RealEstate> findByCity(String city) {
+        lock.readLock().lock();
+        try {
+            int cityId = CityDictionary.find(city);
+            return cityIndex.stream(cityId).mapToObj(realEstates::get).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the loaded properties of a genre.
+     * <p>
+     * Like {@link #findByCity(String)}, this reads the genre index.
+     * </p>
+     *
+     * @param genre the genre
+     * @return the properties of the genre
+     */
+    public static List<RealEstate> findByGenre(RealEstate.Genre genre) {
+        lock.readLock().lock();
+        try {
+            return genreIndex.stream(genre.ordinal()).mapToObj(realEstates::get).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the loaded properties with a total price in a range, cheapest first.
+     * <p>
+     * The range is looked up in the total-price index by binary search, so the cost depends on the number of
+     * matches.
+     * </p>
      *
-     * @return the set of properties
+     * @param min the lowest total price, inclusive
+     * @param max the highest total price, inclusive
+     * @return the properties in the range
      */
-    public static TreeSet<RealEstate> getRealEstates() {
-        logger.info("Retrieving real estate collection, size: " + realEstates.size());
-        return realEstates;
+    public static List<RealEstate> findByTotalPrice(int min, int max) {
+        lock.readLock().lock();
+        try {
+            return priceIndex.between(min, max).mapToObj(realEstates::get).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the loaded property with the lowest total price.
+     * <p>
+     * This reads the first entry of the total-price index in constant time.
+     * </p>
+     *
+     * @return the cheapest property, or {@code null} if none is loaded
+     */
+    public static RealEstate findCheapest() {
+        lock.readLock().lock();
+        try {
+            int row = priceIndex.cheapest();
+            return row < 0 ? null : realEstates.get(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the loaded property with the highest total price.
+     * <p>
+     * Like {@link #findCheapest()}, this reads the last entry of the total-price index.
+     * </p>
+     *
+     * @return the most expensive property, or {@code null} if none is loaded
+     */
+    public static RealEstate findMostExpensive() {
+        lock.readLock().lock();
+        try {
+            int row = priceIndex.mostExpensive();
+            return row < 0 ? null : realEstates.get(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the loaded properties within ranges of total price and area that have at least a number of
+     * rooms. All bounds are inclusive.
+     * <p>
+     * The query is answered by a {@link KdTree}, which only visits the parts of the data overlapping the
+     * ranges instead of calling the getters of every property. The tree is built in parallel on the first
+     * query and rebuilt on the first query after the loaded properties changed. Queries on a current tree only
+     * hold the read lock and run concurrently; building the tree holds the write lock, which is then
+     * downgraded to the read lock for the query.
+     * </p>
+     *
+     * @param minPrice the lowest total price
+     * @param maxPrice the highest total price
+     * @param minSqm   the smallest area in square meters
+     * @param maxSqm   the largest area in square meters
+     * @param minRooms the fewest rooms
+     * @return the matching properties, in no particular order
+     */
+    public static List<RealEstate> findInRange(int minPrice, int maxPrice, double minSqm, double maxSqm,
+                                               int minRooms) {
+        lock.readLock().lock();
+        if (rangeTree == null || rangeTree.isStale()) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (rangeTree == null || rangeTree.isStale()) {
+                    if (rangeTree != null) {
+                        rangeTree.detach();
+                    }
+                    long start = System.nanoTime();
+                    rangeTree = KdTree.build(realEstates);
+                    logger.info(String.format("Built k-d tree over %d properties in %d ms", rangeTree.size(),
+                            (System.nanoTime() - start) / 1_000_000));
+                }
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            return rangeTree.inRange(minPrice, maxPrice, minSqm, maxSqm, minRooms, Integer.MAX_VALUE)
+                    .mapToObj(realEstates::get)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Analyzes the loaded properties matching a filter over the bitmap index.
+     * <p>
+     * The filter combines the bitmaps of the index, for instance
+     * {@code ix -> ix.genre(Genre.FLAT).and(ix.insulated()).andNot(ix.floorBand(FloorBand.TOP))}, and the
+     * statistics are computed over the rows of the resulting bitmap only.
+     * </p>
+     *
+     * @param filter the filter, returning the bitmap of the matching rows
+     * @return the statistics of the matching properties
+     */
+    public static ListingAnalysis analyzeWhere(Function<BitmapIndex, RowBitmap> filter) {
+        lock.readLock().lock();
+        try {
+            return realEstates.analyze(filter.apply(bitmapIndex));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the loaded properties matching a filter over the bitmap index, in row order.
+     *
+     * @param filter the filter, returning the bitmap of the matching rows
+     * @return the matching properties
+     * @see #analyzeWhere(Function)
+     */
+    public static List<RealEstate> findWhere(Function<BitmapIndex, RowBitmap> filter) {
+        lock.readLock().lock();
+        try {
+            return filter.apply(bitmapIndex).stream().mapToObj(realEstates::get).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the running statistics of the loaded properties.
+     * <p>
+     * The statistics are kept up to date by every change of the loaded properties, so reading the current
+     * counts, sums and averages takes constant time instead of a pass like {@link #displayResults()}. The
+     * cheapest and the most expensive property are answered in constant time by {@link #findCheapest()} and
+     * {@link #findMostExpensive()}. The returned object is a {@linkplain ListingStatistics#snapshot() snapshot}
+     * taken under the read lock, which does not change with the loaded properties; call this method again for
+     * current values.
+     * </p>
+     *
+     * @return a snapshot of the statistics
+     */
+    public static ListingStatistics getStatistics() {
+        lock.readLock().lock();
+        try {
+            return statistics.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns all loaded real estate properties.
+     * <p>
+     * The result is an unmodifiable copy taken under the read lock, so later changes to the loaded collection,
+     * for instance by a follower of {@link #followFile(String)}, do not affect it. Like the other queries, it
+     * holds the loaded objects of a {@link ListingRepository} and copies of the rows of the other stores.
+     * </p>
+     *
+     * @return the properties
+     */
+    public static Collection<RealEstate> getRealEstates() {
+        lock.readLock().lock();
+        try {
+            logger.info("Retrieving real estate collection, size: " + realEstates.size());
+            return List.copyOf(realEstates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The sink of a follower of {@link #followFile(String)}. It appends to the store that is current when a
+     * record arrives, and is only called while the follower holds the write lock of the agent.
+     */
+    private static final class FollowerSink implements ListingSink {
+        private final Quarantine quarantine;
+        private CollectingSink target;
+
+        private FollowerSink(Quarantine quarantine) {
+            this.quarantine = quarantine;
+        }
+
+        private CollectingSink target() {
+            if (target == null || target.getTarget() != realEstates) {
+                target = new CollectingSink(realEstates, quarantine);
+            }
+            return target;
+        }
+
+        @Override
+        public void realEstate(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre) {
+            target().realEstate(city, price, sqm, numberOfRooms, genre);
+        }
+
+        @Override
+        public void panel(String city, double price, double sqm, int numberOfRooms, RealEstate.Genre genre,
+                          int floor, boolean isInsulated) {
+            target().panel(city, price, sqm, numberOfRooms, genre, floor, isInsulated);
+        }
+
+        @Override
+        public void listing(RealEstate listing) {
+            target().listing(listing);
+        }
+
+        @Override
+        public void rejected(long lineNumber, String line, RejectReason reason, String detail) {
+            target().rejected(lineNumber, line, reason, detail);
+        }
+    }
+
+    /**
+     * The fields of a line split by {@link #loadFromFile(String)}, decoded on demand.
+     */
+    private static final class SplitFields implements RecordFields {
+        private String[] parts;
+
+        @Override
+        public String city() {
+            return parts[1];
+        }
+
+        @Override
+        public double decimal(int index) {
+            return FieldDecoders.parseDouble(parts[index], 0, parts[index].length());
+        }
+
+        @Override
+        public int integer(int index) {
+            return FieldDecoders.parseInt(parts[index], 0, parts[index].length());
+        }
+
+        @Override
+        public RealEstate.Genre genre(int index) {
+            return FieldDecoders.parseGenre(parts[index], 0, parts[index].length());
+        }
+
+        @Override
+        public boolean flag(int index) {
+            return FieldDecoders.parseInsulated(parts[index], 0, parts[index].length());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+/**
+ * Decodes and encodes the feed lines of one property type.
+ * <p>
+ * A codec is registered in {@link RecordCodecs} under its type tag, the first field of every line of that
+ * type. Readers look the tag up once per line and let the codec decode the remaining fields, so adding a
+ * property type means adding a codec rather than another branch to every reader.
+ * </p>
+ *
+ * @param <T> the type of property the codec handles
+ * @version 1.0
+ */
+public interface RecordCodec<T extends RealEstate> {
+
+    /**
+     * Returns the type tag, matched case-insensitively against the first field of a line.
+     *
+     * @return the tag in upper case ASCII, e.g. {@code REALESTATE}
+     */
+    String tag();
+
+    /**
+     * Returns the class of the properties this codec handles.
+     *
+     * @return the property class
+     */
+    Class<T> type();
+
+    /**
+     * Returns the size of a record in fields, including the type tag.
+     *
+     * @return the number of fields; at least 6
+     */
+    int fieldCount();
+
+    /**
+     * Decodes the fields of a line and passes the record to the sink.
+     *
+     * @param fields the fields of the line, which has at least {@link #fieldCount()} fields
+     * @param sink   the sink receiving the record
+     * @throws IllegalArgumentException if a field cannot be decoded
+     */
+    void decode(RecordFields fields, ListingSink sink);
+
+    /**
+     * Appends a property as a feed line, without the line terminator.
+     *
+     * @param property the property to encode
+     * @param out      the builder receiving the line
+     */
+    void encode(T property, StringBuilder out);
+}
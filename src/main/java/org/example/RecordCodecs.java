@@ -0,0 +1,223 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable registry of {@link RecordCodec}s, keyed by type tag.
+ * <p>
+ * Tags are resolved through a {@link KeywordTable}, so finding the codec of a line costs one hash of the
+ * first field and one comparison, however many types are registered. {@link #DEFAULT} holds the codecs of
+ * the two types of the feed format:
+ * </p>
+ * <ul>
+ *   <li>{@code REALESTATE#city#price#sqm#rooms#genre}, see {@link #REALESTATE}</li>
+ *   <li>{@code PANEL#city#price#sqm#rooms#genre#floor#isInsulated}, see {@link #PANEL}</li>
+ * </ul>
+ * <p>
+ * Further types are added with {@link #with(RecordCodec)}; their records reach sinks through
+ * {@link ListingSink#listing(RealEstate)}.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class RecordCodecs {
+
+    /**
+     * The codec of {@code REALESTATE} lines.
+     */
+    public static final RecordCodec<RealEstate> REALESTATE = new RecordCodec<>() {
+        @Override
+        public String tag() {
+            return "REALESTATE";
+        }
+
+        @Override
+        public Class<RealEstate> type() {
+            return RealEstate.class;
+        }
+
+        @Override
+        public int fieldCount() {
+            return 6;
+        }
+
+        @Override
+        public void decode(RecordFields fields, ListingSink sink) {
+            sink.realEstate(fields.city(), fields.decimal(2), fields.integer(3), fields.integer(4), fields.genre(5));
+        }
+
+        @Override
+        public void encode(RealEstate property, StringBuilder out) {
+            encodeCommon(tag(), property, out);
+        }
+    };
+
+    /**
+     * The codec of {@code PANEL} lines.
+     */
+    public static final RecordCodec<Panel> PANEL = new RecordCodec<>() {
+        @Override
+        public String tag() {
+            return "PANEL";
+        }
+
+        @Override
+        public Class<Panel> type() {
+            return Panel.class;
+        }
+
+        @Override
+        public int fieldCount() {
+            return 8;
+        }
+
+        @Override
+        public void decode(RecordFields fields, ListingSink sink) {
+            sink.panel(fields.city(), fields.decimal(2), fields.integer(3), fields.integer(4), fields.genre(5),
+                    fields.integer(6), fields.flag(7));
+        }
+
+        @Override
+        public void encode(Panel property, StringBuilder out) {
+            encodeCommon(tag(), property, out);
+            out.append('#').append(property.floor).append('#').append(property.isInsulated ? "yes" : "no");
+        }
+    };
+
+    /**
+     * The registry of the standard feed format.
+     */
+    public static final RecordCodecs DEFAULT = new RecordCodecs(List.of(REALESTATE, PANEL));
+
+    private final List<RecordCodec<?>> codecs;
+    private final KeywordTable<RecordCodec<?>> tags;
+    private final Map<Class<?>, RecordCodec<?>> types = new HashMap<>();
+    private final int maxFieldCount;
+
+    /**
+     * Creates a registry holding the given codecs.
+     *
+     * @param codecs the codecs; their tags must be distinct ASCII words
+     * @throws IllegalArgumentException if two codecs share a tag
+     */
+    public RecordCodecs(List<RecordCodec<?>> codecs) {
+        Map<String, RecordCodec<?>> byTag = new LinkedHashMap<>();
+        for (RecordCodec<?> codec : codecs) {
+            if (byTag.put(codec.tag().toUpperCase(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate record type tag: " + codec.tag());
+            }
+            types.put(codec.type(), codec);
+        }
+        this.codecs = List.copyOf(codecs);
+        this.tags = new KeywordTable<>(byTag);
+        this.maxFieldCount = codecs.stream().mapToInt(RecordCodec::fieldCount).max().orElse(1);
+    }
+
+    /**
+     * Returns a registry holding the codecs of this one and another codec.
+     *
+     * @param codec the codec to add
+     * @return the new registry
+     * @throws IllegalArgumentException if the tag of the codec is already registered
+     */
+    public RecordCodecs with(RecordCodec<?> codec) {
+        List<RecordCodec<?>> extended = new ArrayList<>(codecs);
+        extended.add(codec);
+        return new RecordCodecs(extended);
+    }
+
+    /**
+     * Returns the largest number of fields of any registered record type.
+     */
+    int maxFieldCount() {
+        return maxFieldCount;
+    }
+
+    /**
+     * Finds the codec for a type tag stored in a byte range.
+     *
+     * @param buffer the buffer holding the tag
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return the codec, or {@code null} if the tag is unknown
+     */
+    public RecordCodec<?> get(ByteBuffer buffer, int start, int end) {
+        RecordCodec<?> codec = tags.get(buffer, start, end);
+        if (codec == null) {
+            for (int i = start; i < end; i++) {
+                if (buffer.get(i) < 0) {
+                    return getIgnoreCase(FieldDecoders.text(buffer, start, end));
+                }
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Finds the codec for a type tag stored in a char range.
+     *
+     * @param chars the characters holding the tag
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the codec, or {@code null} if the tag is unknown
+     */
+    public RecordCodec<?> get(CharSequence chars, int start, int end) {
+        RecordCodec<?> codec = tags.get(chars, start, end);
+        if (codec == null) {
+            for (int i = start; i < end; i++) {
+                if (chars.charAt(i) > 0x7F) {
+                    return getIgnoreCase(chars.subSequence(start, end).toString());
+                }
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Matches a non-ASCII tag with {@link String#equalsIgnoreCase(String)}, as the feed format always has.
+     */
+    private RecordCodec<?> getIgnoreCase(String tag) {
+        for (RecordCodec<?> codec : codecs) {
+            if (codec.tag().equalsIgnoreCase(tag)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends a property as a feed line, using the codec registered for its exact class.
+     *
+     * @param property the property to encode
+     * @param out      the builder receiving the line, without the line terminator
+     * @throws IllegalArgumentException if no codec is registered for the class of the property
+     */
+    @SuppressWarnings("unchecked")
+    public void encode(RealEstate property, StringBuilder out) {
+        RecordCodec<RealEstate> codec = (RecordCodec<RealEstate>) types.get(property.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("No record codec for " + property.getClass().getName());
+        }
+        codec.encode(property, out);
+    }
+
+    /**
+     * Writes the fields shared by all record types. The area is written as an integer, as the format requires.
+     */
+    private static void encodeCommon(String tag, RealEstate property, StringBuilder out) {
+        out.append(tag).append('#').append(property.city).append('#');
+        if (property.price == Math.rint(property.price) && Math.abs(property.price) < 1e15) {
+            out.append((long) property.price);
+        } else {
+            out.append(property.price);
+        }
+        out.append('#').append((int) property.sqm)
+                .append('#').append(property.numberOfRooms)
+                .append('#').append(property.genre.name());
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+/**
+ * Gives a {@link RecordCodec} access to the {@code #}-separated fields of one feed line.
+ * <p>
+ * Field 0 is the type tag. Every record type starts with the fields of a {@code REALESTATE} record
+ * ({@code city#price#sqm#rooms#genre}, fields 1 to 5) and may add fields of its own from index 6 on. The
+ * accessors decode a field in place with {@link FieldDecoders}, whether the line is held as raw bytes by
+ * {@link FeedParser} or as a split {@code String} by {@link RealEstateAgent#loadFromFile(String)}.
+ * </p>
+ *
+ * @version 1.0
+ */
+public interface RecordFields {
+
+    /**
+     * Returns the city of the line (field 1).
+     *
+     * @return the city
+     */
+    String city();
+
+    /**
+     * Decodes a field as a decimal number, like {@link Double#parseDouble(String)}.
+     *
+     * @param index the index of the field
+     * @return the value
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    double decimal(int index);
+
+    /**
+     * Decodes a field as an {@code int}, like {@link Integer#parseInt(String)}.
+     *
+     * @param index the index of the field
+     * @return the value
+     * @throws NumberFormatException if the field is not a valid {@code int}
+     */
+    int integer(int index);
+
+    /**
+     * Decodes a field as a genre, ignoring case.
+     *
+     * @param index the index of the field
+     * @return the genre
+     * @throws IllegalArgumentException if the field does not name a genre
+     */
+    RealEstate.Genre genre(int index);
+
+    /**
+     * Decodes a field as a flag: {@code yes} in any case is true, anything else false.
+     *
+     * @param index the index of the field
+     * @return the flag
+     */
+    boolean flag(int index);
+}
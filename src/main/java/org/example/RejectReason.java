@@ -0,0 +1,44 @@
+package org.example;
+
+/**
+ * Classifies why a line of a listing feed could not be loaded.
+ *
+ * @version 1.0
+ * @see Quarantine
+ */
+public enum RejectReason {
+
+    /** The first field is neither {@code REALESTATE} nor {@code PANEL}. */
+    UNKNOWN_TYPE,
+
+    /** The line has fewer fields than its record type requires. */
+    MISSING_FIELDS,
+
+    /** A price, area, room count or floor is not a valid number. */
+    INVALID_NUMBER,
+
+    /** The genre field does not name a {@link RealEstate.Genre}. */
+    INVALID_GENRE,
+
+    /** The line was decoded, but the property could not be stored. */
+    NOT_STORED;
+
+    /**
+     * Classifies an exception thrown while decoding a line.
+     *
+     * @param e the exception
+     * @return the matching reason
+     */
+    public static RejectReason of(Exception e) {
+        if (e instanceof NumberFormatException) {
+            return INVALID_NUMBER;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return INVALID_GENRE;
+        }
+        if (e instanceof IndexOutOfBoundsException) {
+            return MISSING_FIELDS;
+        }
+        return NOT_STORED;
+    }
+}
@@ -0,0 +1,515 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A compressed set of row numbers in the layout of a roaring bitmap.
+ * <p>
+ * Rows are split by their upper 16 bits into chunks of 65536. Each non-empty chunk is a container holding the
+ * lower 16 bits of its rows, either as a sorted {@code char[]} while it has at most {@value #ARRAY_LIMIT} rows
+ * or as a plain bitmap of 1024 {@code long} words once it has more. A sparse chunk therefore costs two bytes
+ * per row and a dense one a fixed 8 KB, and a chunk without rows costs nothing. Containers switch
+ * representation as rows are added and removed.
+ * </p>
+ * <p>
+ * {@link #and(RowBitmap)}, {@link #or(RowBitmap)} and {@link #andNot(RowBitmap)} combine two bitmaps chunk by
+ * chunk into a new bitmap: two bitmap containers are combined a word at a time, and an array container is
+ * combined by probing the other container for each of its rows. Chunks present in only one operand are
+ * skipped or copied whole. Bitmaps can only be changed from within the package, so the bitmaps handed out
+ * by a {@link BitmapIndex} are read-only for its callers. Instances are not thread-safe.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class RowBitmap {
+
+    /**
+     * The largest number of rows an array container holds before it becomes a bitmap container.
+     */
+    private static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Creates an empty bitmap.
+     */
+    public RowBitmap() {
+    }
+
+    /**
+     * Creates a bitmap holding some rows.
+     *
+     * @param rows the rows, not negative
+     * @return the bitmap
+     */
+    public static RowBitmap of(int... rows) {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row : rows) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns whether a row is in the bitmap.
+     *
+     * @param row the row
+     * @return true if the row is in the bitmap
+     */
+    public boolean contains(int row) {
+        int index = row < 0 ? -1 : find(high(row));
+        return index >= 0 && containers[index].contains(low(row));
+    }
+
+    /**
+     * Returns the number of rows in the bitmap.
+     *
+     * @return the number of rows
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns whether the bitmap holds no rows.
+     *
+     * @return true if the bitmap is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the rows in both this bitmap and another.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public RowBitmap and(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], Container.and(containers[i++], other.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rows in this bitmap, in another or in both.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public RowBitmap or(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i++].copy());
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j++].copy());
+            } else {
+                result.append(keys[i], Container.or(containers[i++], other.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rows in this bitmap but not in another.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public RowBitmap andNot(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.append(keys[i], Container.andNot(containers[i], other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Passes the rows of the bitmap to an action, in ascending order.
+     *
+     * @param action the action
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns the rows of the bitmap in ascending order.
+     *
+     * @return a new array of rows
+     */
+    public int[] toArray() {
+        int[] rows = new int[cardinality()];
+        int[] next = new int[1];
+        forEach(row -> rows[next[0]++] = row);
+        return rows;
+    }
+
+    /**
+     * Streams the rows of the bitmap in ascending order.
+     *
+     * @return the rows
+     */
+    public IntStream stream() {
+        return Arrays.stream(toArray());
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param row the row, not negative
+     * @return false if the row was already in the bitmap
+     */
+    boolean add(int row) {
+        char high = high(row);
+        int index = find(high);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, high, new ArrayContainer(new char[4], 0));
+        }
+        Container container = containers[index];
+        if (container.contains(low(row))) {
+            return false;
+        }
+        containers[index] = container.add(low(row));
+        return true;
+    }
+
+    /**
+     * Removes a row.
+     *
+     * @param row the row
+     * @return false if the row was not in the bitmap
+     */
+    boolean remove(int row) {
+        int index = row < 0 ? -1 : find(high(row));
+        if (index < 0 || !containers[index].contains(low(row))) {
+            return false;
+        }
+        Container container = containers[index].remove(low(row));
+        if (container.cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all rows.
+     */
+    void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    private static char high(int row) {
+        return (char) (row >>> 16);
+    }
+
+    private static char low(int row) {
+        return (char) row;
+    }
+
+    private int find(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void append(char key, Container container) {
+        if (container.cardinality > 0) {
+            insert(size, key, container);
+        }
+    }
+
+    /**
+     * The lower 16 bits of the rows in one chunk.
+     */
+    private abstract static sealed class Container permits ArrayContainer, BitmapContainer {
+
+        int cardinality;
+
+        abstract boolean contains(char low);
+
+        /**
+         * Adds a value that is not in the container and returns the container now holding it.
+         */
+        abstract Container add(char low);
+
+        /**
+         * Removes a value that is in the container and returns the container now holding the rest.
+         */
+        abstract Container remove(char low);
+
+        abstract Container copy();
+
+        abstract void forEach(int base, IntConsumer action);
+
+        static Container and(Container a, Container b) {
+            if (a instanceof ArrayContainer array) {
+                return array.filter(b, true);
+            }
+            if (b instanceof ArrayContainer array) {
+                return array.filter(a, true);
+            }
+            long[] words = ((BitmapContainer) a).words.clone();
+            long[] others = ((BitmapContainer) b).words;
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= others[i];
+            }
+            return BitmapContainer.of(words);
+        }
+
+        static Container or(Container a, Container b) {
+            if (a instanceof ArrayContainer x && b instanceof ArrayContainer y) {
+                return x.merge(y);
+            }
+            if (a instanceof ArrayContainer) {
+                Container swap = a;
+                a = b;
+                b = swap;
+            }
+            long[] words = ((BitmapContainer) a).words.clone();
+            if (b instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < words.length; i++) {
+                    words[i] |= bitmap.words[i];
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) b;
+                for (int i = 0; i < array.cardinality; i++) {
+                    words[array.values[i] >>> 6] |= 1L << array.values[i];
+                }
+            }
+            return BitmapContainer.of(words);
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a instanceof ArrayContainer array) {
+                return array.filter(b, false);
+            }
+            long[] words = ((BitmapContainer) a).words.clone();
+            if (b instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < words.length; i++) {
+                    words[i] &= ~bitmap.words[i];
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) b;
+                for (int i = 0; i < array.cardinality; i++) {
+                    words[array.values[i] >>> 6] &= ~(1L << array.values[i]);
+                }
+            }
+            return BitmapContainer.of(words);
+        }
+    }
+
+    /**
+     * A container holding its values in a sorted array.
+     */
+    private static final class ArrayContainer extends Container {
+
+        char[] values;
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(low);
+            }
+            int position = -Arrays.binarySearch(values, 0, cardinality, low) - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(Math.max(4, cardinality * 2), ARRAY_LIMIT));
+            }
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+            cardinality--;
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        /**
+         * Returns the values that are, or are not, in another container.
+         */
+        ArrayContainer filter(Container other, boolean keep) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]) == keep) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        Container merge(ArrayContainer other) {
+            char[] result = new char[cardinality + other.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < other.cardinality) {
+                if (j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > other.values[j]) {
+                    result[count++] = other.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(result, count);
+            return count > ARRAY_LIMIT ? merged.toBitmap() : merged;
+        }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[1024];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    /**
+     * A container holding its values as the bits of 1024 words.
+     */
+    private static final class BitmapContainer extends Container {
+
+        final long[] words;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Wraps the result of a word-wise operation, turning it into an array container if it became sparse.
+         */
+        static Container of(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+            return cardinality > ARRAY_LIMIT ? bitmap : bitmap.toArray();
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            words[low >>> 6] |= 1L << low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            words[low >>> 6] &= ~(1L << low);
+            cardinality--;
+            return cardinality > ARRAY_LIMIT ? this : toArray();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A sorted index over the total prices of the rows of a {@link ListingStore}.
+ * <p>
+ * Every row is one {@code long} entry holding its total price in the upper and its row number in the lower
+ * 32 bits, so entries order by price and then by row, and identical prices stay distinct. The entries are kept
+ * in sorted blocks of at most {@value #BLOCK_SIZE}, like the leaves of a B+-tree whose only inner level is the
+ * array of blocks. Lookups binary-search the blocks and then the block, an insertion or removal shifts at most
+ * one block, and a full block is split in two. The cheapest and the most expensive row are the ends of the
+ * first and the last block, so reading them costs O(1), and a price range costs O(log n) plus the number of
+ * rows in it.
+ * </p>
+ * <p>
+ * The index listens to its store and re-prices a row whenever it changes, for instance through
+ * {@link ListingStore#setPrice(int, double)}, {@link ListingStore#makeDiscount(int, double)} or
+ * {@link ListingStore#setCity(int, String)}. Total prices are computed by {@link ListingStore#totalPrice(int)}
+ * when a row is indexed, and the index remembers the total of every row, so a row is found again even if the
+ * {@link PricingRules} changed since. The totals themselves are only refreshed when a row changes or the index
+ * is rebuilt. The index is not thread-safe.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class TotalPriceIndex implements ListingListener {
+
+    /**
+     * The largest number of entries per block.
+     */
+    private static final int BLOCK_SIZE = 512;
+
+    private final ListingStore store;
+    private long[][] blocks = new long[16][];
+    private int[] sizes = new int[16];
+    private int blockCount;
+    private int size;
+    private int[] indexedPrices = new int[0];
+    private boolean reloading;
+
+    /**
+     * Creates an index over the current rows of a store and keeps it up to date.
+     *
+     * @param store the store to index
+     */
+    public TotalPriceIndex(ListingStore store) {
+        this.store = store;
+        load();
+        store.addListener(this);
+    }
+
+    /**
+     * Stops following the store. The index keeps its current content.
+     */
+    public void detach() {
+        store.removeListener(this);
+    }
+
+    /**
+     * Returns the number of indexed rows.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the row with the lowest total price; ties go to the lowest row.
+     *
+     * @return the row, or -1 if the index is empty
+     */
+    public int cheapest() {
+        return size == 0 ? -1 : row(blocks[0][0]);
+    }
+
+    /**
+     * Returns the row with the highest total price; ties go to the highest row.
+     *
+     * @return the row, or -1 if the index is empty
+     */
+    public int mostExpensive() {
+        return size == 0 ? -1 : row(blocks[blockCount - 1][sizes[blockCount - 1] - 1]);
+    }
+
+    /**
+     * Returns the lowest total price.
+     *
+     * @return the lowest total price, or 0 if the index is empty
+     */
+    public int minPrice() {
+        return size == 0 ? 0 : price(blocks[0][0]);
+    }
+
+    /**
+     * Returns the highest total price.
+     *
+     * @return the highest total price, or 0 if the index is empty
+     */
+    public int maxPrice() {
+        return size == 0 ? 0 : price(blocks[blockCount - 1][sizes[blockCount - 1] - 1]);
+    }
+
+    /**
+     * Passes the rows with a total price in a range to an action, in ascending order of price.
+     *
+     * @param min    the lowest total price, inclusive
+     * @param max    the highest total price, inclusive
+     * @param action the action
+     * @return the number of rows passed
+     */
+    public int forEachBetween(int min, int max, IntConsumer action) {
+        if (min > max || size == 0) {
+            return 0;
+        }
+        long last = entry(max, -1);
+        long first = entry(min, 0);
+        int block = findBlock(first);
+        int position = lowerBound(block, first);
+        int count = 0;
+        for (; block < blockCount; block++, position = 0) {
+            long[] entries = blocks[block];
+            for (int i = position; i < sizes[block]; i++) {
+                if (entries[i] > last) {
+                    return count;
+                }
+                action.accept(row(entries[i]));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the rows with a total price in a range, in ascending order of price.
+     *
+     * @param min the lowest total price, inclusive
+     * @param max the highest total price, inclusive
+     * @return the rows
+     */
+    public IntStream between(int min, int max) {
+        IntStream.Builder rows = IntStream.builder();
+        forEachBetween(min, max, rows::add);
+        return rows.build();
+    }
+
+    /**
+     * Returns the number of rows with a total price in a range.
+     *
+     * @param min the lowest total price, inclusive
+     * @param max the highest total price, inclusive
+     * @return the number of rows
+     */
+    public int countBetween(int min, int max) {
+        return forEachBetween(min, max, row -> {
+        });
+    }
+
+    @Override
+    public void added(ListingStore store, int row) {
+        insert(entry(remember(row, store.totalPrice(row)), row));
+    }
+
+    @Override
+    public void removing(ListingStore store, int row) {
+        delete(entry(indexedPrices[row], row));
+    }
+
+    @Override
+    public void updating(ListingStore store, int row) {
+        delete(entry(indexedPrices[row], row));
+    }
+
+    @Override
+    public void updated(ListingStore store, int row) {
+        insert(entry(remember(row, store.totalPrice(row)), row));
+    }
+
+    /**
+     * Re-prices a few rows one by one; if they are more than a quarter of the index, the whole index is
+     * rebuilt in bulk by {@link #repriced(ListingStore, RowBitmap)} instead.
+     */
+    @Override
+    public void repricing(ListingStore store, RowBitmap rows) {
+        reloading = rows.cardinality() > size / 4;
+        if (!reloading) {
+            rows.forEach(row -> delete(entry(indexedPrices[row], row)));
+        }
+    }
+
+    @Override
+    public void repriced(ListingStore store, RowBitmap rows) {
+        if (reloading) {
+            load();
+        } else {
+            rows.forEach(row -> insert(entry(remember(row, store.totalPrice(row)), row)));
+        }
+    }
+
+    @Override
+    public void cleared(ListingStore store) {
+        Arrays.fill(blocks, 0, blockCount, null);
+        blockCount = 0;
+        size = 0;
+        indexedPrices = new int[0];
+    }
+
+    /**
+     * Replaces the content of the index with the current rows of the store, priced by
+     * {@link ListingStore#totalPrices()}, sorted in bulk and packed into blocks three quarters full, which
+     * leaves room for later insertions.
+     */
+    private void load() {
+        indexedPrices = store.totalPrices();
+        long[] entries = store.rows().mapToLong(row -> entry(indexedPrices[row], row)).toArray();
+        Arrays.parallelSort(entries);
+        Arrays.fill(blocks, 0, blockCount, null);
+        blockCount = 0;
+        int fill = BLOCK_SIZE * 3 / 4;
+        for (int start = 0; start < entries.length; start += fill) {
+            int length = Math.min(fill, entries.length - start);
+            long[] block = new long[BLOCK_SIZE];
+            System.arraycopy(entries, start, block, 0, length);
+            insertBlock(blockCount, block, length);
+        }
+        size = entries.length;
+    }
+
+    /**
+     * Records the total price a row is indexed with.
+     */
+    private int remember(int row, int totalPrice) {
+        if (row >= indexedPrices.length) {
+            indexedPrices = Arrays.copyOf(indexedPrices, Math.max(row + 1, indexedPrices.length * 2));
+        }
+        indexedPrices[row] = totalPrice;
+        return totalPrice;
+    }
+
+    private static long entry(int totalPrice, int row) {
+        return ((long) totalPrice << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private static int price(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    private static int row(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Returns the last block whose first entry is not above {@code entry}, or 0.
+     */
+    private int findBlock(long entry) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blocks[mid][0] <= entry) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int lowerBound(int block, long entry) {
+        int position = Arrays.binarySearch(blocks[block], 0, sizes[block], entry);
+        return position < 0 ? -position - 1 : position;
+    }
+
+    private void insert(long entry) {
+        if (blockCount == 0) {
+            insertBlock(0, new long[BLOCK_SIZE], 0);
+        }
+        int block = findBlock(entry);
+        if (sizes[block] == BLOCK_SIZE) {
+            split(block);
+            if (entry >= blocks[block + 1][0]) {
+                block++;
+            }
+        }
+        long[] entries = blocks[block];
+        int length = sizes[block];
+        int position = lowerBound(block, entry);
+        if (position < length && entries[position] == entry) {
+            return;
+        }
+        System.arraycopy(entries, position, entries, position + 1, length - position);
+        entries[position] = entry;
+        sizes[block] = length + 1;
+        size++;
+    }
+
+    private void delete(long entry) {
+        if (size == 0) {
+            return;
+        }
+        int block = findBlock(entry);
+        long[] entries = blocks[block];
+        int length = sizes[block];
+        int position = Arrays.binarySearch(entries, 0, length, entry);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(entries, position + 1, entries, position, length - position - 1);
+        sizes[block] = length - 1;
+        size--;
+        if (length == 1) {
+            removeBlock(block);
+        }
+    }
+
+    private void split(int block) {
+        int half = BLOCK_SIZE / 2;
+        long[] upper = new long[BLOCK_SIZE];
+        System.arraycopy(blocks[block], half, upper, 0, BLOCK_SIZE - half);
+        sizes[block] = half;
+        insertBlock(block + 1, upper, BLOCK_SIZE - half);
+    }
+
+    private void insertBlock(int index, long[] block, int length) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            sizes = Arrays.copyOf(sizes, blockCount * 2);
+        }
+        System.arraycopy(blocks, index, blocks, index + 1, blockCount - index);
+        System.arraycopy(sizes, index, sizes, index + 1, blockCount - index);
+        blocks[index] = block;
+        sizes[index] = length;
+        blockCount++;
+    }
+
+    private void removeBlock(int index) {
+        System.arraycopy(blocks, index + 1, blocks, index, blockCount - index - 1);
+        System.arraycopy(sizes, index + 1, sizes, index, blockCount - index - 1);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API kernel of {@link BatchPricer}. This is the only class that refers to
+ * {@code jdk.incubator.vector}, so it is loaded only when the module is present.
+ * <p>
+ * The multipliers are gathered from copies of the tables of {@link PricingRules} that end with an extra
+ * entry of 1: the keys of a vector are clamped in a vector register, lanes whose city id or floor has no
+ * table entry and lanes that are not panels are pointed at the extra entry, and one gather fetches all
+ * multipliers. The insulation multiplier is blended in for the insulated panels. The arithmetic
+ * then runs on whole vectors without branches, since multiplying a whole number by 1 and truncating it leaves
+ * it unchanged, just as skipping the stage does.
+ * </p>
+ * <p>
+ * {@code Math.round} is rebuilt from truncation: the floor of {@code x} is its truncation, minus 1 if that is
+ * above {@code x}, and {@code x} rounds up if its distance to the floor, which is computed exactly, is at least
+ * one half. This matches {@code Math.round} for every value in the {@code int} range, including halves and
+ * negative values. Every intermediate price is checked to be a number within the {@code int} range, where
+ * truncating through {@code long} equals the {@code int} casts of {@link PricingEngine}; vectors with any
+ * other value are priced by {@link BatchPricer#scalarTotalPrices}.
+ * </p>
+ *
+ * @version 1.0
+ */
+final class VectorPricingKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2).withLanes(int.class);
+    private static final DoubleVector ONES = DoubleVector.broadcast(DOUBLES, 1);
+
+    private VectorPricingKernel() {
+    }
+
+    /**
+     * Returns the number of rows priced per vector.
+     *
+     * @return the lane count
+     */
+    static int lanes() {
+        return DOUBLES.length();
+    }
+
+    /**
+     * Prices a range of rows, see {@link BatchPricer#totalPrices}.
+     */
+    static void totalPrices(PricingRules rules, double[] prices, int[] cityIds, int[] floors, boolean[] insulated,
+                            boolean[] panels, int[] totals, int from, int to) {
+        double[] cityTable = padded(rules.cityTable());
+        double[] floorTable = padded(rules.floorTable());
+        int[] indexes = new int[INTS.length()];
+        DoubleVector insulation = DoubleVector.broadcast(DOUBLES, rules.insulationMultiplier());
+        int lanes = DOUBLES.length();
+        int vectorEnd = from + (to - from) / lanes * lanes;
+        for (int row = from; row < vectorEnd; row += lanes) {
+            VectorMask<Double> panel = VectorMask.fromArray(DOUBLES, panels, row);
+            DoubleVector price = DoubleVector.fromArray(DOUBLES, prices, row)
+                    .mul(lookup(cityTable, cityIds, row, INTS.maskAll(true), indexes));
+            VectorMask<Double> exact = inIntRange(price);
+            price = round(price).mul(lookup(floorTable, floors, row, panel.cast(INTS), indexes));
+            exact = exact.and(inIntRange(price));
+            VectorMask<Double> insulatedPanel = panel.and(VectorMask.fromArray(DOUBLES, insulated, row));
+            price = truncate(price).mul(ONES.blend(insulation, insulatedPanel));
+            exact = exact.and(inIntRange(price));
+            if (exact.allTrue()) {
+                ((IntVector) truncate(price).convertShape(VectorOperators.D2I, INTS, 0)).intoArray(totals, row);
+            } else {
+                BatchPricer.scalarTotalPrices(rules, prices, cityIds, floors, insulated, panels, totals,
+                        row, row + lanes);
+            }
+        }
+        BatchPricer.scalarTotalPrices(rules, prices, cityIds, floors, insulated, panels, totals, vectorEnd, to);
+    }
+
+    /**
+     * Copies a table and appends the multiplier 1.
+     */
+    private static double[] padded(double[] table) {
+        double[] padded = Arrays.copyOf(table, table.length + 1);
+        padded[table.length] = 1;
+        return padded;
+    }
+
+    /**
+     * Gathers the entries of a padded table at the keys of the selected lanes; the other lanes and keys
+     * outside the table get the last entry, 1.
+     */
+    private static DoubleVector lookup(double[] table, int[] keys, int row, VectorMask<Integer> selected,
+                                       int[] indexes) {
+        int last = table.length - 1;
+        IntVector key = IntVector.fromArray(INTS, keys, row);
+        VectorMask<Integer> present = key.compare(VectorOperators.GE, 0)
+                .and(key.compare(VectorOperators.LT, last))
+                .and(selected);
+        IntVector.broadcast(INTS, last).blend(key, present).intoArray(indexes, 0);
+        return DoubleVector.fromArray(DOUBLES, table, 0, indexes, 0);
+    }
+
+    /**
+     * Returns the lanes holding a number within the {@code int} range; NaN compares false.
+     */
+    private static VectorMask<Double> inIntRange(DoubleVector values) {
+        return values.compare(VectorOperators.GE, Integer.MIN_VALUE)
+                .and(values.compare(VectorOperators.LE, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Rounds to the nearest whole number, halves up, like {@code Math.round}.
+     */
+    private static DoubleVector round(DoubleVector values) {
+        DoubleVector truncated = truncate(values);
+        DoubleVector floor = truncated.sub(1, truncated.compare(VectorOperators.GT, values));
+        return floor.add(1, values.sub(floor).compare(VectorOperators.GE, 0.5));
+    }
+
+    /**
+     * Rounds toward zero, like a cast to {@code long}.
+     */
+    private static DoubleVector truncate(DoubleVector values) {
+        return (DoubleVector) values.convert(VectorOperators.D2L, 0).convert(VectorOperators.L2D, 0);
+    }
+}